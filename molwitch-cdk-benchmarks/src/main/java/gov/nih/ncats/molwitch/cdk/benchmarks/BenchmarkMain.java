@@ -0,0 +1,64 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}.  Takes the usual JMH command line
+ * but always adds the {@link GCProfiler} so every run reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes allocated per operation) next to the throughput.
+ *
+ * <pre>
+ * java -jar molwitch-cdk-benchmarks/target/benchmarks.jar                  # everything
+ * java -jar molwitch-cdk-benchmarks/target/benchmarks.jar SearchBenchmark  # a regex of benchmarks
+ * java -jar molwitch-cdk-benchmarks/target/benchmarks.jar -rf json -rff result.json
+ * </pre>
+ */
+public final class BenchmarkMain {
+
+	private BenchmarkMain(){
+		//can not instantiate
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(commandLine);
+		if(commandLine.getIncludes().isEmpty()){
+			builder.include(BenchmarkMain.class.getPackage().getName() + ".*");
+		}
+		if(commandLine.getProfilers().stream().noneMatch(p -> p.getKlass().equals(GCProfiler.class.getName())
+				|| p.getKlass().equals("gc"))){
+			builder.addProfiler(GCProfiler.class);
+		}
+		Options options = builder.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nih.ncats.molwitch.Atom;
+import gov.nih.ncats.molwitch.Bond;
+import gov.nih.ncats.molwitch.BondTable;
+import gov.nih.ncats.molwitch.Chemical;
+
+/**
+ * Looking up the {@link Bond}s of a large structure: every bond by index,
+ * every atom's bonds and every bond through the {@link BondTable}.
+ * The structure is a polyalanine peptide, 5 heavy atoms per residue,
+ * so 1000 residues is a structure of a little over 5000 atoms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BondLookupBenchmark {
+
+	@Param({"100", "1000"})
+	public int residues;
+
+	private Chemical peptide;
+
+	@Setup
+	public void setup() throws IOException{
+		StringBuilder smiles = new StringBuilder(residues * 10);
+		for(int i=0; i< residues; i++){
+			smiles.append("NC(C)C(=O)");
+		}
+		smiles.append("O");
+		peptide = Chemical.parse(smiles.toString());
+	}
+
+	@Benchmark
+	public void getBond(Blackhole bh){
+		int n = peptide.getBondCount();
+		for(int i=0; i< n; i++){
+			bh.consume(peptide.getBond(i));
+		}
+	}
+
+	@Benchmark
+	public void atomBonds(Blackhole bh){
+		for(Atom a : peptide.getAtoms()){
+			bh.consume(a.getBonds());
+		}
+	}
+
+	@Benchmark
+	public void bondTable(Blackhole bh){
+		BondTable table = peptide.getBondTable();
+		int n = peptide.getBondCount();
+		for(int i=0; i< n; i++){
+			Bond b = peptide.getBond(i);
+			bh.consume(table.getBond(b.getAtom1().getAtomIndexInParent(), b.getAtom2().getAtomIndexInParent()));
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nih.ncats.molwitch.Chemical;
+
+/**
+ * The per structure operations of {@code CdkChemicalImpl}.
+ *
+ * <p>
+ * {@code aromatize()} and {@code kekulize()} change the structure so those benchmarks
+ * work on a copy each time; {@link #copy(Blackhole)} measures just the copy so it can be
+ * subtracted out.  The corpus is read from an SDF so it is kekulized already;
+ * {@link #kekulize(Blackhole)} aromatizes the copy first, compare it to
+ * {@link #aromatize(Blackhole)}.  The other operations cache what they compute on the structure, so
+ * they also use a fresh copy or else only the cache lookup would be measured.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChemicalOperationsBenchmark {
+
+	private List<Chemical> chemicals;
+
+	@Setup
+	public void setup(){
+		chemicals = Corpus.chemicals();
+	}
+
+	@Benchmark
+	public void copy(Blackhole bh){
+		for(Chemical c : chemicals){
+			bh.consume(c.copy());
+		}
+	}
+
+	@Benchmark
+	public void aromatize(Blackhole bh){
+		for(Chemical c : chemicals){
+			Chemical copy = c.copy();
+			copy.aromatize();
+			bh.consume(copy);
+		}
+	}
+
+	@Benchmark
+	public void kekulize(Blackhole bh){
+		for(Chemical c : chemicals){
+			Chemical copy = c.copy();
+			copy.aromatize();
+			copy.kekulize();
+			bh.consume(copy);
+		}
+	}
+
+	@Benchmark
+	public void getTetrahedrals(Blackhole bh){
+		for(Chemical c : chemicals){
+			bh.consume(c.copy().getTetrahedrals());
+		}
+	}
+
+	@Benchmark
+	public void getMass(Blackhole bh){
+		for(Chemical c : chemicals){
+			bh.consume(c.copy().getMass());
+		}
+	}
+
+	@Benchmark
+	public void getFormula(Blackhole bh){
+		for(Chemical c : chemicals){
+			bh.consume(c.copy().getFormula());
+		}
+	}
+}
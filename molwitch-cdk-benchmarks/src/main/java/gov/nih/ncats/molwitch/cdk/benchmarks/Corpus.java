@@ -0,0 +1,125 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.io.ChemicalReader;
+import gov.nih.ncats.molwitch.io.ChemicalReaderFactory;
+
+/**
+ * The checked in benchmark corpus: 50 drug-like structures
+ * (small aromatics, stereo rich natural products, charged salts, peptides)
+ * as SMILES in {@code corpus/drugs.smi} and as an SDF with 2D coordinates
+ * in {@code corpus/drugs.sdf}.  Both files have the structures in the same order.
+ */
+final class Corpus {
+
+	private static final String SMILES_RESOURCE = "/corpus/drugs.smi";
+	private static final String SDF_RESOURCE = "/corpus/drugs.sdf";
+
+	private Corpus(){
+		//can not instantiate
+	}
+
+	/**
+	 * The SMILES of every structure in the corpus.
+	 */
+	static List<String> smiles(){
+		String text = new String(load(SMILES_RESOURCE), StandardCharsets.US_ASCII);
+		List<String> list = new ArrayList<>();
+		for(String line : text.split("\\R")){
+			if(!line.isEmpty()){
+				list.add(line.split("\\s+")[0]);
+			}
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * The raw bytes of the SDF.
+	 */
+	static byte[] sdfBytes(){
+		return load(SDF_RESOURCE);
+	}
+
+	/**
+	 * The SDF as a String.
+	 */
+	static String sdf(){
+		return new String(sdfBytes(), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * The MOL text of every record in the SDF.
+	 */
+	static List<String> molRecords(){
+		List<String> list = new ArrayList<>();
+		for(String record : sdf().split("\\$\\$\\$\\$\\R?")){
+			if(!record.trim().isEmpty()){
+				list.add(record);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Parse every record of the SDF.
+	 */
+	static List<Chemical> chemicals(){
+		List<Chemical> list = new ArrayList<>();
+		try(ChemicalReader reader = ChemicalReaderFactory.newReader(sdfBytes())){
+			while(reader.canRead()){
+				list.add(reader.read());
+			}
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+		return list;
+	}
+
+	private static byte[] load(String resource){
+		try(InputStream in = Corpus.class.getResourceAsStream(resource)){
+			if(in ==null){
+				throw new IllegalStateException("missing corpus resource " + resource);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			int read;
+			while((read = in.read(buf)) > 0){
+				out.write(buf, 0, read);
+			}
+			return out.toByteArray();
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+}
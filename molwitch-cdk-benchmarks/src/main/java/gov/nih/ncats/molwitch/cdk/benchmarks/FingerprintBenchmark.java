@@ -0,0 +1,81 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.BatchFingerprinter;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.DefaultFingerPrinter;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinter;
+
+/**
+ * {@code FingerprinterAdapter.computeFingerprint(Chemical)} through the default
+ * path based fingerprinter over the corpus, one at a time and as a batch
+ * through {@link BatchFingerprinter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FingerprintBenchmark {
+
+	private List<Chemical> chemicals;
+	private Fingerprinter fingerprinter;
+	private BatchFingerprinter batchFingerprinter;
+
+	@Setup
+	public void setup(){
+		chemicals = Corpus.chemicals();
+		DefaultFingerPrinter impl = new DefaultFingerPrinter();
+		fingerprinter = impl.createDefaultFingerprinter();
+		batchFingerprinter = impl.createBatchFingerprinterFor(null);
+	}
+
+	@Benchmark
+	public void computeFingerprint(Blackhole bh){
+		for(Chemical c : chemicals){
+			bh.consume(fingerprinter.computeFingerprint(c));
+		}
+	}
+
+	@Benchmark
+	public void computeAll(Blackhole bh){
+		bh.consume(batchFingerprinter.computeAll(chemicals));
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.CdkChemicalInchiImplFactory;
+
+/**
+ * Standard InChI generation through {@link CdkChemicalInchiImplFactory#asStdInchi(Chemical, boolean)}.
+ * The results are cached across calls, so {@link #asStdInchi(EmptyCache, Blackhole)} empties the cache
+ * before every call to measure the generation itself and {@link #asStdInchiCached(Blackhole)}
+ * measures repeat lookups of the same structures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InchiBenchmark {
+
+	private List<Chemical> chemicals;
+	private CdkChemicalInchiImplFactory factory;
+
+	@Setup
+	public void setup(){
+		chemicals = Corpus.chemicals();
+		factory = new CdkChemicalInchiImplFactory();
+	}
+
+	@State(Scope.Thread)
+	public static class EmptyCache{
+		@Setup(Level.Invocation)
+		public void clear(){
+			CdkChemicalInchiImplFactory.getResultCache().clear();
+		}
+	}
+
+	@Benchmark
+	public void asStdInchi(EmptyCache emptyCache, Blackhole bh) throws IOException{
+		for(Chemical c : chemicals){
+			bh.consume(factory.asStdInchi(c, true));
+		}
+	}
+
+	@Benchmark
+	public void asStdInchiCached(Blackhole bh) throws IOException{
+		for(Chemical c : chemicals){
+			bh.consume(factory.asStdInchi(c, true));
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nih.ncats.molwitch.cdk.CdkChemical2FactoryImpl;
+import gov.nih.ncats.molwitch.spi.ChemicalImpl;
+import gov.nih.ncats.molwitch.spi.ChemicalImplReader;
+
+/**
+ * Parsing the whole corpus: SMILES through {@link CdkChemical2FactoryImpl#createFromSmiles(String)},
+ * a single MOL record at a time, and the whole SDF from a stream and from a byte array.
+ * Each operation is one pass over the 50 structures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+	private CdkChemical2FactoryImpl factory;
+	private List<String> smiles;
+	private List<String> molRecords;
+	private byte[] sdfBytes;
+
+	@Setup
+	public void setup(){
+		factory = new CdkChemical2FactoryImpl();
+		smiles = Corpus.smiles();
+		molRecords = Corpus.molRecords();
+		sdfBytes = Corpus.sdfBytes();
+	}
+
+	@Benchmark
+	public void createFromSmiles(Blackhole bh) throws IOException{
+		for(String s : smiles){
+			bh.consume(factory.createFromSmiles(s));
+		}
+	}
+
+	@Benchmark
+	public void createFromMol(Blackhole bh) throws IOException{
+		for(String mol : molRecords){
+			bh.consume(factory.createFromString("mol", mol));
+		}
+	}
+
+	@Benchmark
+	public void readSdfStream(Blackhole bh) throws IOException{
+		readAll(factory.create(new ByteArrayInputStream(sdfBytes)), bh);
+	}
+
+	@Benchmark
+	public void readSdfBytes(Blackhole bh) throws IOException{
+		readAll(factory.create(sdfBytes, 0, sdfBytes.length), bh);
+	}
+
+	private static void readAll(ChemicalImplReader reader, Blackhole bh) throws IOException{
+		try(ChemicalImplReader r = reader){
+			ChemicalImpl<?> impl;
+			while((impl = r.read()) !=null){
+				bh.consume(impl);
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.writer.CdkSmilesWriterFactory;
+import gov.nih.ncats.molwitch.cdk.writer.Mdl2000WriterFactory;
+import gov.nih.ncats.molwitch.cdk.writer.Mdl3000WriterFactory;
+import gov.nih.ncats.molwitch.cdk.writer.SdfWriterFactory;
+import gov.nih.ncats.molwitch.cdk.writer.SmartsChemicalWriterFactory;
+import gov.nih.ncats.molwitch.io.ChemFormat;
+import gov.nih.ncats.molwitch.io.ChemFormat.ChemFormatWriterSpecification;
+import gov.nih.ncats.molwitch.spi.ChemicalWriterImpl;
+import gov.nih.ncats.molwitch.spi.ChemicalWriterImplFactory;
+
+/**
+ * Each of the writer factories writing the whole corpus, one record at a time
+ * as a String and to a stream.  The MOL writers only take one record so
+ * {@link #writeStream(Blackhole)} opens a new writer for each structure for those.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+
+	public enum Writer{
+		MOL_V2000(true){
+			@Override
+			ChemicalWriterImplFactory factory() { return new Mdl2000WriterFactory(); }
+			@Override
+			ChemFormatWriterSpecification spec() { return new ChemFormat.MolFormatSpecification(ChemFormat.MolFormatSpecification.Version.V2000); }
+		},
+		MOL_V3000(true){
+			@Override
+			ChemicalWriterImplFactory factory() { return new Mdl3000WriterFactory(); }
+			@Override
+			ChemFormatWriterSpecification spec() { return new ChemFormat.MolFormatSpecification(ChemFormat.MolFormatSpecification.Version.V3000); }
+		},
+		SDF(false){
+			@Override
+			ChemicalWriterImplFactory factory() { return new SdfWriterFactory(); }
+			@Override
+			ChemFormatWriterSpecification spec() { return new ChemFormat.SdfFormatSpecification(); }
+		},
+		SMILES(false){
+			@Override
+			ChemicalWriterImplFactory factory() { return new CdkSmilesWriterFactory(); }
+			@Override
+			ChemFormatWriterSpecification spec() { return new ChemFormat.SmilesFormatWriterSpecification(); }
+		},
+		SMARTS(false){
+			@Override
+			ChemicalWriterImplFactory factory() { return new SmartsChemicalWriterFactory(); }
+			@Override
+			ChemFormatWriterSpecification spec() { return new ChemFormat.SmartsFormatSpecification(); }
+		};
+
+		private final boolean singleRecord;
+
+		Writer(boolean singleRecord){
+			this.singleRecord = singleRecord;
+		}
+
+		abstract ChemicalWriterImplFactory factory();
+		abstract ChemFormatWriterSpecification spec();
+	}
+
+	@Param
+	public Writer writer;
+
+	private List<Chemical> chemicals;
+	private ChemicalWriterImplFactory factory;
+	private ChemFormatWriterSpecification spec;
+
+	@Setup
+	public void setup(){
+		chemicals = Corpus.chemicals();
+		factory = writer.factory();
+		spec = writer.spec();
+		if(!factory.supports(spec)){
+			throw new IllegalStateException(writer + " factory does not support " + spec);
+		}
+	}
+
+	@Benchmark
+	public void writeAsString(Blackhole bh) throws IOException{
+		for(Chemical c : chemicals){
+			bh.consume(factory.writeAsString(c.getImpl(), spec));
+		}
+	}
+
+	@Benchmark
+	public void writeStream(Blackhole bh) throws IOException{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+		if(writer.singleRecord){
+			for(Chemical c : chemicals){
+				try(ChemicalWriterImpl w = factory.newInstance(out, spec)){
+					w.write(c.getImpl());
+				}
+			}
+		}else{
+			try(ChemicalWriterImpl w = factory.newInstance(out, spec)){
+				for(Chemical c : chemicals){
+					w.write(c.getImpl());
+				}
+			}
+		}
+		bh.consume(out.size());
+	}
+}
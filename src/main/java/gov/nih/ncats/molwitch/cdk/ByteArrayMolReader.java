@@ -0,0 +1,312 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import gov.nih.ncats.molwitch.ChemicalSource;
+import gov.nih.ncats.molwitch.spi.ChemicalImplReader;
+
+/**
+ * A {@link ChemicalImplReader} for MOL/SDF records that works directly
+ * on a slice of a byte array.
+ *
+ * <p>
+ * Records are found by scanning the bytes for {@code $$$$} lines and each record
+ * is handed to the CDK parser through a {@link Reader} that widens each byte to a char,
+ * so there is no charset decoding and no per line copy of the record.  This only works
+ * for ASCII input, use {@link #canRead(byte[], int, int)} to check first.
+ * The {@link ChemicalSource} of each record is a {@link LazyChemicalSource} so the
+ * record String is only made if someone asks for it; it keeps a copy of the record's bytes
+ * so the caller is free to reuse the array once a record has been read.
+ * </p>
+ */
+final class ByteArrayMolReader implements ChemicalImplReader{
+
+	private static final String NEW_LINE = System.lineSeparator();
+	private static final String M_END = "M  END";
+
+	private final byte[] bytes;
+	private final int end;
+	private int position;
+	private ChemicalSource.Type type;
+	//the line count a ProgramClearingMol2000Wrapper over all the input would be at,
+	//like the stream reader it only clears the program line when it gets to its count
+	private int lineInMol;
+
+	ByteArrayMolReader(byte[] bytes, int start, int length) {
+		this.bytes = bytes;
+		this.position = start;
+		this.end = start + length;
+	}
+
+	/**
+	 * Can the given slice be read by this reader: it has to be all ASCII
+	 * and look like a MOL or SDF (the 4th line is a V2000 or V3000 counts line).
+	 *
+	 * @param bytes the array.
+	 * @param start the offset of the slice.
+	 * @param length the length of the slice.
+	 * @return {@code true} if a ByteArrayMolReader can read it.
+	 */
+	static boolean canRead(byte[] bytes, int start, int length){
+		return isAscii(bytes, start, length) && looksLikeMol(bytes, start, start+length);
+	}
+
+	static boolean isAscii(byte[] bytes, int start, int length){
+		int end = start + length;
+		for(int i=start; i< end; i++){
+			if(bytes[i] < 0){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean looksLikeMol(byte[] bytes, int start, int end){
+		//same check as ReaderFactory.guessReaderFor
+		int lineStart = start;
+		for(int line=0; line < 3; line++){
+			lineStart = nextLine(bytes, lineStart, end);
+		}
+		int lineEnd = lineEnd(bytes, lineStart, end);
+		return endsWith(bytes, lineStart, lineEnd, "V2000") || endsWith(bytes, lineStart, lineEnd, "V3000");
+	}
+
+	private static boolean endsWith(byte[] bytes, int lineStart, int lineEnd, String suffix){
+		int len = suffix.length();
+		if(lineEnd - lineStart < len){
+			return false;
+		}
+		for(int i=0; i< len; i++){
+			if(bytes[lineEnd - len + i] != suffix.charAt(i)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The end of the line not including the line terminator.
+	 */
+	private static int lineEnd(byte[] bytes, int lineStart, int end){
+		int i = lineStart;
+		while(i < end && bytes[i] != '\n'){
+			i++;
+		}
+		if(i > lineStart && bytes[i-1] == '\r'){
+			i--;
+		}
+		return i;
+	}
+
+	/**
+	 * The start of the next line.
+	 */
+	private static int nextLine(byte[] bytes, int lineStart, int end){
+		int i = lineStart;
+		while(i < end && bytes[i] != '\n'){
+			i++;
+		}
+		return Math.min(i+1, end);
+	}
+
+	private int findRecordEnd(int recordStart){
+		int lineStart = recordStart;
+		while(lineStart < end){
+			int next = nextLine(bytes, lineStart, end);
+			if(next - lineStart >=4 && isDelimiter(lineStart)){
+				return next;
+			}
+			lineStart = next;
+		}
+		return end;
+	}
+
+	/**
+	 * Where a {@link ProgramClearingMol2000Wrapper} that starts the record
+	 * at the given line count will be once it has read the whole record.
+	 */
+	private int lineInMolAfter(int recordStart, int recordEnd, int lineInMol){
+		int lineStart = recordStart;
+		while(lineStart < recordEnd){
+			lineInMol++;
+			if(lineInMol !=2 && isMEnd(lineStart, lineEnd(bytes, lineStart, recordEnd))){
+				lineInMol = -1;
+			}
+			lineStart = nextLine(bytes, lineStart, recordEnd);
+		}
+		return lineInMol;
+	}
+
+	private boolean isMEnd(int lineStart, int lineEnd){
+		return lineEnd - lineStart == M_END.length() && endsWith(bytes, lineStart, lineEnd, M_END);
+	}
+
+	private boolean isBlank(int start, int end){
+		for(int i=start; i< end; i++){
+			if(!Character.isWhitespace(bytes[i])){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean endsWithDelimiter(int start, int end){
+		int lastLine = lineStartOfLastLine(start, end);
+		return end - lastLine >= 4 && isDelimiter(lastLine);
+	}
+
+	private boolean isDelimiter(int lineStart){
+		return bytes[lineStart] == '$' && bytes[lineStart+1] == '$'
+				&& bytes[lineStart+2] == '$' && bytes[lineStart+3] == '$';
+	}
+
+	private int lineStartOfLastLine(int start, int end){
+		int i = end -1;
+		//skip the terminator of the last line
+		while(i > start && (bytes[i] == '\n' || bytes[i] == '\r')){
+			i--;
+		}
+		while(i > start && bytes[i-1] != '\n'){
+			i--;
+		}
+		return i;
+	}
+
+	@Override
+	public CdkChemicalImpl read() throws IOException {
+		while(position < end){
+			int recordStart = position;
+			int recordEnd = findRecordEnd(recordStart);
+			position = recordEnd;
+			if(isBlank(recordStart, recordEnd)){
+				continue;
+			}
+			if(type ==null){
+				type = endsWithDelimiter(recordStart, recordEnd) ? ChemicalSource.Type.SDF : ChemicalSource.Type.MOL;
+			}
+			int recordLineInMol = lineInMol;
+			lineInMol = lineInMolAfter(recordStart, recordEnd, recordLineInMol);
+			IAtomContainer container;
+			try(IdAwareSdfReader reader = new IdAwareSdfReader(
+					new ProgramClearingMol2000Wrapper(new AsciiReader(bytes, recordStart, recordEnd), recordLineInMol),
+					SilentChemObjectBuilder.getInstance())){
+				if(!reader.hasNext()){
+					continue;
+				}
+				container = reader.next();
+			}
+			//the caller may reuse its array once we return so the source keeps its own copy of the record
+			byte[] record = Arrays.copyOfRange(bytes, recordStart, recordEnd);
+			return new CdkChemicalImpl(container, new LazyChemicalSource(type,
+					()-> toSourceText(record, 0, record.length, recordLineInMol)));
+		}
+		return null;
+	}
+
+	/**
+	 * Make the same text the {@link CdkChemical2FactoryImpl.SavedBufferedReader} would have
+	 * for this record: the same line is cleared as when the wrapper reads the whole input
+	 * (the program line of the first record) and every line ends with the system line separator.
+	 */
+	private static String toSourceText(byte[] bytes, int start, int end, int lineInMol){
+		StringBuilder builder = new StringBuilder(end - start + 64);
+		try(BufferedReader reader = new ProgramClearingMol2000Wrapper(new AsciiReader(bytes, start, end), lineInMol)){
+			String line;
+			while((line = reader.readLine()) !=null){
+				builder.append(line).append(NEW_LINE);
+			}
+		}catch(IOException e){
+			//can't happen reading from an array
+			throw new UncheckedIOException(e);
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public void close() throws IOException {
+		//no-op
+	}
+
+	/**
+	 * A Reader over ASCII bytes that just widens each byte to a char.
+	 */
+	static final class AsciiReader extends Reader{
+		private final byte[] bytes;
+		private final int end;
+		private int position;
+
+		AsciiReader(byte[] bytes, int start, int end) {
+			this.bytes = bytes;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read() {
+			if(position >= end){
+				return -1;
+			}
+			return bytes[position++];
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) {
+			if(len ==0){
+				return 0;
+			}
+			if(position >= end){
+				return -1;
+			}
+			int n = Math.min(len, end - position);
+			for(int i=0; i< n; i++){
+				cbuf[off + i] = (char) bytes[position++];
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) {
+			long skipped = Math.max(0, Math.min(n, end - position));
+			position += (int) skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean ready() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+			//no-op
+		}
+	}
+}
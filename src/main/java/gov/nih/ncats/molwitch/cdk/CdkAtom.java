@@ -20,7 +20,6 @@ import org.openscience.cdk.CDKConstants;
 import org.openscience.cdk.SingleElectron;
 import org.openscience.cdk.config.IsotopeFactory;
 import org.openscience.cdk.config.Isotopes;
-import org.openscience.cdk.graph.Cycles;
 import org.openscience.cdk.interfaces.*;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
 import org.openscience.cdk.stereo.Stereocenters;
@@ -75,28 +74,8 @@ public class CdkAtom implements Atom{
 
 	@Override
 	public int getSmallestRingSize() {
-		//this should set the ISINRING flags
-		parent.ringsSearcherSupplier.get();
-		if( !atom.isInRing()) {
-			return 0;
-		};
-	
-		
-		IRingSet ringSet = Cycles.sssr(((IAtomContainer) parent.getWrappedObject())).toRingSet();
-		if(!ringSet.contains(atom)) {
-			return 0;
-		}
-		int min = Integer.MAX_VALUE;
-		for(IAtomContainer r : ringSet.atomContainers()) {
-			if(r.contains(atom)) {
-				int len = r.getAtomCount();
-				if(len < min) {
-					min = len;
-				}
-			}
-		}
-		
-		return min;
+		//the SSSR and ring sizes of every atom are computed once per version of the structure
+		return parent.ringPerceptionSupplier.get().getSmallestRingSize(atom);
 	}
 
 
@@ -259,6 +238,7 @@ public class CdkAtom implements Atom{
 
 	@Override
 	public AtomCoordinates getAtomCoordinates() {
+		parent.computeDeferredCoordinates();
 		Point3d points = atom.getPoint3d();
 		if(points !=null) {
 			return AtomCoordinates.valueOf(points.x, points.y, points.z);
@@ -272,6 +252,8 @@ public class CdkAtom implements Atom{
 
 	@Override
 	public void setAtomCoordinates(AtomCoordinates atomCoordinates) {
+		//do the layout first so it doesn't overwrite this later
+		parent.computeDeferredCoordinates();
 		if(atomCoordinates ==null) {
 			atom.setPoint2d(null);
 			atom.setPoint3d(null);
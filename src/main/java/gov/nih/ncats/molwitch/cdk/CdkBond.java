@@ -212,7 +212,7 @@ public class CdkBond implements Bond{
 			bond.setStereo(IBond.Stereo.UP_OR_DOWN_INVERTED);
 			break;
 		}
-		parent.setDirty();
+		parent.setStereoDirty();
 		
 	}
 
@@ -286,6 +286,14 @@ public class CdkBond implements Bond{
 	}
 
 
+	/**
+	 * The size of the smallest ring in the SSSR that this bond is in.
+	 * @return the ring size; 0 if this bond isn't in a ring.
+	 */
+	public int getSmallestRingSize() {
+		return parent.ringPerceptionSupplier.get().getSmallestRingSize(bond);
+	}
+
     @Override
     public String toString() {
         return "CdkBond{" +
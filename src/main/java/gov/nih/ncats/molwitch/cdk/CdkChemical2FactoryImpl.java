@@ -23,13 +23,23 @@ package gov.nih.ncats.molwitch.cdk;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -69,17 +79,52 @@ import gov.nih.ncats.molwitch.spi.ChemicalImplReader;
 
 public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 
-	private SmilesParser preserveAromaticSmilesParser;
-	private SmilesParser kekuleSmilesParser;
+	//SmilesParsers aren't thread safe so each thread gets its own
+	private static final ThreadLocal<SmilesParser> preserveAromaticSmilesParser = ThreadLocal.withInitial(()->{
+		SmilesParser parser = new SmilesParser(CdkUtil.getChemObjectBuilder());
+		//make aromatic
+		parser.kekulise(false);
+		return parser;
+	});
+	private static final ThreadLocal<SmilesParser> kekuleSmilesParser = ThreadLocal.withInitial(()->
+			new SmilesParser(CdkUtil.getChemObjectBuilder()));
 	private static Logger logger = Logger.getLogger("CdkChemical2FactoryImpl");
 
+	//MOL/SDF input is parsed on this many threads; 1 means parse on the caller's thread.
+	//With more than 1 the reader owns a background thread that is only stopped when
+	//the input runs out or the reader is closed, so close it (try-with-resources).
+	private static int sdfReaderThreads = 1;
+
+	public static int getSdfReaderThreads() {
+		return sdfReaderThreads;
+	}
+
+	public static void setSdfReaderThreads(int sdfReaderThreads) {
+		if(sdfReaderThreads < 1){
+			throw new IllegalArgumentException("sdfReaderThreads must be >= 1");
+		}
+		CdkChemical2FactoryImpl.sdfReaderThreads = sdfReaderThreads;
+	}
+
+	//when reading MOL/SDF files, only keep where each record is and re-read the
+	//record text from the file if the ChemicalSource data is ever asked for.
+	//Compressed files are always read the normal way.
+	//Files read this way are decoded as LAZY_SOURCE_CHARSET instead of the platform default.
+	private static boolean lazyFileSources = false;
+
+	//lazy source files are read, and their record text re-read, with this charset; the same as IndexedSdfReader
+	private static final Charset LAZY_SOURCE_CHARSET = StandardCharsets.UTF_8;
+
+	public static boolean isLazyFileSources() {
+		return lazyFileSources;
+	}
+
+	public static void setLazyFileSources(boolean lazyFileSources) {
+		CdkChemical2FactoryImpl.lazyFileSources = lazyFileSources;
+	}
+
 
 	public CdkChemical2FactoryImpl(){
-		
-		 preserveAromaticSmilesParser = new SmilesParser(CdkUtil.getChemObjectBuilder());
-		 //make aromatic
-		 preserveAromaticSmilesParser.kekulise(false);
-		 kekuleSmilesParser = new SmilesParser(CdkUtil.getChemObjectBuilder());
 
 	}
 	
@@ -129,10 +174,17 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 	}
 	
 	private IAtomContainer tryCreate(String smiles) throws CDKException, IOException {
+		//decide up front which fallbacks are worth trying
+		//since each failed parse costs an exception
+		SmilesKind kind = SmilesKind.classify(smiles);
 		try {
-			return kekuleSmilesParser.parseSmiles(smiles);
+			return kekuleSmilesParser.get().parseSmiles(smiles);
 		} catch (InvalidSmilesException e) {
-//			e.printStackTrace();
+			if(kind == SmilesKind.ALIPHATIC){
+				//nothing to kekulize so the other parsers would fail the same way
+				logger.fine("error parsing input as SMILES; will try parsing as SMARTS");
+				return tryCreateFromSmarts(smiles);
+			}
 			/* From the CDK smiles parser docs:
 			If a kekulé structure could not be assigned this is considered an error.
 			The most common example is the omission of hydrogens on aromatic nitrogens
@@ -142,26 +194,83 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 			structure would differ depending on the atom input order.
 			If you wish to skip the kekulistation (not recommended) then it can be disabled with kekulise.
 			 */
-			try {
-				String fixed = smiles.replace("[n]", "[nH]");
-				return kekuleSmilesParser.parseSmiles(fixed);
-			} catch (InvalidSmilesException e2) {
-				logger.warning("error parsing input as SMILES; will try preserveAromaticSmilesParser");
+			if(smiles.contains("[n]")) {
 				try {
-					return preserveAromaticSmilesParser.parseSmiles(smiles);
-				}catch(Exception e3){
-					logger.warning("error parsing input as SMILES with preserveAromaticSmilesParser; will try parsing as SMARTS");
-					try{
-						return CdkUtil.parseSmarts(smiles);
+					String fixed = smiles.replace("[n]", "[nH]");
+					return kekuleSmilesParser.get().parseSmiles(fixed);
+				} catch (InvalidSmilesException e2) {
+					//fall through to the aromatic parser
+				}
+			}
+			logger.fine("error parsing input as SMILES; will try preserveAromaticSmilesParser");
+			try {
+				return preserveAromaticSmilesParser.get().parseSmiles(smiles);
+			}catch(Exception e3){
+				logger.fine("error parsing input as SMILES with preserveAromaticSmilesParser; will try parsing as SMARTS");
+				return tryCreateFromSmarts(smiles);
+			}
+		}
+		
+	}
+
+	private static IAtomContainer tryCreateFromSmarts(String smiles){
+		try{
+			return CdkUtil.parseSmarts(smiles);
+		}
+		catch (Exception smartsException){
+			logger.severe("abandoning all hope of parsing " + smiles);
+			return null;
+		}
+	}
+
+	/**
+	 * A quick look at a SMILES string to decide which parsers
+	 * are worth trying.  The kekule and aromatic preserving parsers only differ
+	 * in kekulization so if there is nothing aromatic to kekulize
+	 * they will both fail the same way.
+	 */
+	enum SmilesKind{
+		/**
+		 * No aromatic atoms or bonds, so kekulization can't fail.
+		 */
+		ALIPHATIC,
+		/**
+		 * Might have aromatic atoms or bonds which might not kekulize.
+		 */
+		AROMATIC;
+
+		static SmilesKind classify(String smiles){
+			boolean inBracket = false;
+			for(int i=0; i< smiles.length(); i++){
+				char c = smiles.charAt(i);
+				if(Character.isWhitespace(c)){
+					//the rest is a title or CXSMILES extensions
+					break;
+				}
+				if(c == '['){
+					inBracket = true;
+				}else if(c == ']'){
+					inBracket = false;
+				}else if(c == ':'){
+					//outside of a bracket it's an aromatic bond, inside it's an atom class
+					if(!inBracket){
+						return AROMATIC;
 					}
-					catch (Exception smartsException){
-						logger.severe("abandoning all hope of parsing " + smiles);
-						return null;
+				}else if(Character.isLowerCase(c)){
+					char prev = i==0 ? 0 : smiles.charAt(i-1);
+					if(inBracket){
+						//second letter of an element symbol like [Na]
+						if(!Character.isUpperCase(prev)){
+							return AROMATIC;
+						}
+					}else if(!((c=='l' && prev=='C') || (c=='r' && prev=='B'))){
+						//Cl and Br are the only organic subset symbols with a lowercase letter
+						return AROMATIC;
 					}
 				}
 			}
+			return ALIPHATIC;
 		}
-		
 	}
 	
 	 /**
@@ -282,13 +391,27 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 
 
 
+	/**
+	 * Create a reader for the given slice of bytes.  ASCII MOL and SDF input is parsed
+	 * straight from the array without decoding it and the record text for each {@link ChemicalSource}
+	 * is only made when it's asked for, so the array must not be changed
+	 * while the returned chemicals are still in use.
+	 */
 	@Override
 	public ChemicalImplReader create(byte[] molBytes, int start, int length) throws IOException {
+		if(ByteArrayMolReader.canRead(molBytes, start, length)){
+			return new ByteArrayMolReader(molBytes, start, length);
+		}
 		return create(new ByteArrayInputStream(molBytes, start, length));
 	}
 	@Override
 	public ChemicalImplReader create(String format, byte[] molBytes, int start, int length) throws IOException {
-		return createFrom(computeFormatFromString(format),
+		IChemFormat chemFormat = computeFormatFromString(format);
+		if((chemFormat instanceof MDLV2000Format || chemFormat instanceof SDFFormat)
+				&& ByteArrayMolReader.isAscii(molBytes, start, length)){
+			return new ByteArrayMolReader(molBytes, start, length);
+		}
+		return createFrom(chemFormat,
 				new InputStreamReader(new ByteArrayInputStream(molBytes, start, length)),
 				null);
 //    	return create(new ByteArrayInputStream(molBytes, start, length));
@@ -335,7 +458,8 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 	@Override
 	public ChemicalImplReader create(String format, File file) throws IOException {
 		return createFrom(computeFormatFromString(format),
-				new InputStreamReader(InputStreamSupplier.forFile(file).get()),
+				openFile(file),
+				file,
 				source -> {
 					source.getProperties().put(CommonProperties.Filename, file.getName());
 					source.getProperties().put(CommonProperties.Filepath, file.getAbsolutePath());
@@ -353,7 +477,8 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 
 	@Override
 	public ChemicalImplReader create(File file) throws IOException {
-		return createFrom(new InputStreamReader(InputStreamSupplier.forFile(file).get()),
+		return createFrom(openFile(file),
+				file,
 				source -> {
 					source.getProperties().put(CommonProperties.Filename, file.getName());
 					source.getProperties().put(CommonProperties.Filepath, file.getAbsolutePath());
@@ -361,23 +486,83 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 					});
 	}
 	
+	/**
+	 * Open the given file the way it will be read: the same as always
+	 * unless it might get lazy sources, then it has to be read in the
+	 * charset the record text will be re-read in and keep where each record is.
+	 * Compressed files never get lazy sources since the offsets of the records
+	 * we parse aren't offsets in the file.
+	 */
+	private static Reader openFile(File file) throws IOException {
+		if(lazyFileSources && !isCompressed(file)){
+			return new LineOffsetReader(new FileInputStream(file), LAZY_SOURCE_CHARSET);
+		}
+		return new InputStreamReader(InputStreamSupplier.forFile(file).get());
+	}
+
 	private ChemicalImplReader createFrom(Reader reader, Consumer<ChemicalSource> sourceConsumer) throws IOException {
+		return createFrom(reader, null, sourceConsumer);
+	}
+
+	private ChemicalImplReader createFrom(Reader reader, File file, Consumer<ChemicalSource> sourceConsumer) throws IOException {
 		//needs to be buffered because the reader factory
 		//tries to go back and re-read!
 		
 
 		ReaderFactory.GuessResult guessedReader = ReaderFactory.guessReaderFor(new BufferedReader(reader));
-		return new CdkChemicalImplReader(guessedReader.cdkReader, guessedReader.savedBufferedReader, sourceConsumer);
+		return createReaderFor(guessedReader, file, lineOffsetsOf(reader), sourceConsumer);
 	}
 
 	private ChemicalImplReader createFrom(IChemFormat format, Reader reader, Consumer<ChemicalSource> sourceConsumer) throws IOException {
+		return createFrom(format, reader, null, sourceConsumer);
+	}
+
+	private ChemicalImplReader createFrom(IChemFormat format, Reader reader, File file, Consumer<ChemicalSource> sourceConsumer) throws IOException {
 		//needs to be buffered because the reader factory
 		//tries to go back and re-read!
 
 		ReaderFactory.GuessResult guessedReader = ReaderFactory.create(new BufferedReader(reader), format);
-		return new CdkChemicalImplReader(guessedReader.cdkReader, guessedReader.savedBufferedReader, sourceConsumer);
+		return createReaderFor(guessedReader, file, lineOffsetsOf(reader), sourceConsumer);
+	}
+
+	private static LineOffsetReader lineOffsetsOf(Reader reader){
+		return reader instanceof LineOffsetReader ? (LineOffsetReader) reader : null;
+	}
+
+	private static ChemicalImplReader createReaderFor(ReaderFactory.GuessResult guessedReader, File file,
+													  LineOffsetReader lineOffsets, Consumer<ChemicalSource> sourceConsumer) throws IOException {
+		int threads = sdfReaderThreads;
+		if(threads > 1 && guessedReader.cdkReader instanceof IdAwareSdfReader){
+			//nothing has been read by the cdk reader yet so we can read the lines ourselves
+			BufferedReader records = guessedReader.savedBufferedReader.detach();
+			//the guessed reader isn't used, closing it no longer closes the records we just took
+			guessedReader.cdkReader.close();
+			return new ParallelSdfReader(records, threads, sourceConsumer);
+		}
+		File lazySourceFile = null;
+		//only a file opened by openFile for lazy sources knows where its records are
+		if(file !=null && lineOffsets !=null && guessedReader.cdkReader instanceof IdAwareSdfReader){
+			guessedReader.savedBufferedReader.setLineOffsets(lineOffsets);
+			lazySourceFile = file;
+		}
+		return new CdkChemicalImplReader(guessedReader.cdkReader, guessedReader.savedBufferedReader, lazySourceFile, sourceConsumer);
 	}
 	
+	/**
+	 * Does the file start with the gzip or zip magic number that makes
+	 * {@link InputStreamSupplier#forFile(File)} decompress it.
+	 */
+	private static boolean isCompressed(File file) throws IOException {
+		byte[] magic = new byte[4];
+		int read;
+		try(InputStream in = new FileInputStream(file)){
+			read = in.readNBytes(magic, 0, magic.length);
+		}
+		boolean isGzip = read >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B;
+		boolean isZip = read == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+		return isGzip || isZip;
+	}
+
 	@Override
 	public ChemicalImplReader create(InputStream in) throws IOException {
 		return createFrom(new InputStreamReader(in), null);
@@ -394,11 +579,24 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 		private ChemicalSource.Type type;
 		boolean alreadyReadFirstRecord=false;
 		private Consumer<ChemicalSource> sourceConsumer;
+		/**
+		 * The file to re-read record text from if the savedReader
+		 * isn't capturing it; null if it is.
+		 */
+		private final File lazySourceFile;
+
 		public CdkChemicalImplReader(IIteratingChemObjectReader<IAtomContainer> iter, 
 				SavedBufferedReader savedReader,
 				Consumer<ChemicalSource> sourceConsumer) {
+			this(iter, savedReader, null, sourceConsumer);
+		}
+		public CdkChemicalImplReader(IIteratingChemObjectReader<IAtomContainer> iter,
+				SavedBufferedReader savedReader,
+				File lazySourceFile,
+				Consumer<ChemicalSource> sourceConsumer) {
 			this.iter = iter;
 			this.savedReader = savedReader;
+			this.lazySourceFile = lazySourceFile;
 			this.sourceConsumer = sourceConsumer;
 			
 			this.type = iter instanceof IteratingSDFReader ? ChemicalSource.Type.SDF : ChemicalSource.Type.SMILES;
@@ -414,6 +612,14 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 			if(iter.hasNext()){
 				try {
 				ChemicalImpl impl= new CdkChemicalImpl(iter.next(),()->{
+					if(lazySourceFile !=null){
+						SavedBufferedReader.RecordPosition position = savedReader.getRecordPosition();
+						if(!alreadyReadFirstRecord) {
+							type = position.hasDelimiter ? ChemicalSource.Type.SDF : ChemicalSource.Type.MOL;
+						}
+						alreadyReadFirstRecord=true;
+						return new LazyChemicalSource(type, ()-> readRecordText(position));
+					}
 					String data = savedReader.getBufferedLines();
 //					System.out.println(data);
 //					System.out.println("type = " + type);
@@ -446,14 +652,32 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 				return impl;
 				}catch(Throwable e) {
 					e.printStackTrace();
-					System.err.println("problem record\n=======\n" + savedReader.getBufferedLines() +"\n=======");
+					if(lazySourceFile ==null) {
+						System.err.println("problem record\n=======\n" + savedReader.getBufferedLines() + "\n=======");
+					}else{
+						System.err.println("problem record #" + savedReader.getRecordPosition().ordinal + " of " + lazySourceFile.getAbsolutePath());
+					}
 					throw e;
 				}
 			}
 			
 			return null;
 		}
-		
+
+		private String readRecordText(SavedBufferedReader.RecordPosition position){
+			try(FileChannel channel = FileChannel.open(lazySourceFile.toPath(), StandardOpenOption.READ)){
+				ByteBuffer bytes = ByteBuffer.allocate(Math.toIntExact(position.length));
+				while(bytes.hasRemaining()){
+					if(channel.read(bytes, position.offset + bytes.position()) < 0){
+						throw new EOFException("file is shorter than when it was read");
+					}
+				}
+				bytes.flip();
+				return position.toSavedText(LAZY_SOURCE_CHARSET.decode(bytes).toString());
+			}catch(IOException e){
+				throw new UncheckedIOException("could not re-read record #" + position.ordinal + " of " + lazySourceFile.getAbsolutePath(), e);
+			}
+		}
 		
 	}
 
@@ -464,16 +688,63 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 		
 		private int resetPosition = -1;
 		BufferedReader reader;
+
+		private boolean captureText = true;
+		//where the lines are in the file, only set when not capturing text
+		private LineOffsetReader lineOffsets;
+		//where we are in the current record, kept even when capturing text
+		//so a record can be found again without the text
+		private int recordNumber;
+		private long recordStartLine;
+		private int lineInRecord;
+		private boolean recordHasDelimiter;
+		//lines we returned as blank which might not be in the input (the cleared program line)
+		private int[] blankLines = new int[8];
+		private int blankLineCount;
+
+		private int resetLineInRecord;
+		private boolean resetRecordHasDelimiter;
+		private int resetBlankLineCount;
+		//the reader was handed to someone else so closing this must not close it
+		private boolean detached;
+
 		public SavedBufferedReader(BufferedReader in) {
 			super(in);
 			this.reader = in;
 		}
 
+		/**
+		 * Turn off saving the text of each record, only the
+		 * position of the record is kept (see {@link #getRecordPosition()})
+		 * so the text can be re-read from the file later.
+		 * {@link #getBufferedLines()} will always be empty.
+		 *
+		 * @param lineOffsets the reader at the bottom of this reader
+		 *                    that is reading the file.
+		 */
+		void setLineOffsets(LineOffsetReader lineOffsets){
+			this.lineOffsets = Objects.requireNonNull(lineOffsets);
+			this.captureText = false;
+			buffer.setLength(0);
+			buffer.trimToSize();
+		}
+
 		@Override
 		public String readLine() throws IOException {
 			String line = reader.readLine();
 			if(line !=null){
-				buffer.append(line).append(NEW_LINE);
+				if(captureText) {
+					buffer.append(line).append(NEW_LINE);
+				}
+				if(line.isEmpty()){
+					if(blankLineCount == blankLines.length){
+						blankLines = Arrays.copyOf(blankLines, blankLineCount *2);
+					}
+					blankLines[blankLineCount++] = lineInRecord;
+				}else if(line.startsWith("$$$$")){
+					recordHasDelimiter = true;
+				}
+				lineInRecord++;
 			}
 			return line;
 		}
@@ -482,6 +753,9 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 		@Override
 		public void mark(int readAheadLimit) throws IOException {
 			resetPosition = buffer.length();
+			resetLineInRecord = lineInRecord;
+			resetRecordHasDelimiter = recordHasDelimiter;
+			resetBlankLineCount = blankLineCount;
 			reader.mark(readAheadLimit);
 		}
 
@@ -491,6 +765,9 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 			reader.reset();
 			buffer.setLength(resetPosition);
 			resetPosition =-1;
+			lineInRecord = resetLineInRecord;
+			recordHasDelimiter = resetRecordHasDelimiter;
+			blankLineCount = resetBlankLineCount;
 		}
 		
 		
@@ -499,6 +776,86 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 		}
 		public void resetBuffer(){
 			buffer.setLength(0);
+			recordNumber++;
+			recordStartLine += lineInRecord;
+			lineInRecord = 0;
+			if(lineOffsets !=null){
+				lineOffsets.discardBefore(recordStartLine);
+			}
+			recordHasDelimiter = false;
+			blankLineCount = 0;
+		}
+
+		/**
+		 * Get the position of the record currently being read.
+		 * @return a new RecordPosition; will never be null.
+		 */
+		public RecordPosition getRecordPosition(){
+			long offset =-1;
+			long length =0;
+			if(lineOffsets !=null){
+				offset = lineOffsets.getLineStart(recordStartLine);
+				length = lineOffsets.getLineStart(recordStartLine + lineInRecord) - offset;
+			}
+			return new RecordPosition(recordNumber, offset, length, lineInRecord, recordHasDelimiter,
+					Arrays.copyOf(blankLines, blankLineCount));
+		}
+
+		/**
+		 * Where a record is in the input and what is needed to
+		 * turn the raw record text back into the text the SavedBufferedReader
+		 * would have saved.
+		 */
+		static final class RecordPosition{
+			/**
+			 * The 0-based record number.
+			 */
+			final int ordinal;
+			/**
+			 * Where the record's bytes are in the file; -1 if not known.
+			 */
+			final long offset;
+			final long length;
+			final int lineCount;
+			final boolean hasDelimiter;
+			private final int[] blankLines;
+
+			RecordPosition(int ordinal, long offset, long length, int lineCount, boolean hasDelimiter, int[] blankLines) {
+				this.ordinal = ordinal;
+				this.offset = offset;
+				this.length = length;
+				this.lineCount = lineCount;
+				this.hasDelimiter = hasDelimiter;
+				this.blankLines = blankLines;
+			}
+
+			/**
+			 * Make the text from the raw text of the record:
+			 * only the lines that were read, with the lines that were
+			 * returned blank blanked out, each ending with the system line separator.
+			 *
+			 * @param rawRecord the record as it is in the input.
+			 * @return the text.
+			 */
+			String toSavedText(String rawRecord){
+				StringBuilder builder = new StringBuilder(rawRecord.length() + 64);
+				String newLine = System.lineSeparator();
+				try(BufferedReader lines = new BufferedReader(new StringReader(rawRecord))){
+					int blankIndex=0;
+					String line;
+					for(int i=0; i< lineCount && (line = lines.readLine()) !=null; i++){
+						if(blankIndex < blankLines.length && blankLines[blankIndex] == i){
+							blankIndex++;
+							line = "";
+						}
+						builder.append(line).append(newLine);
+					}
+				}catch(IOException e){
+					//can't happen reading a String
+					throw new UncheckedIOException(e);
+				}
+				return builder.toString();
+			}
 		}
 
 		@Override
@@ -526,9 +883,22 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 			return reader.markSupported();
 		}
 
+		/**
+		 * Take the reader this reader is reading from so it
+		 * can be read by something else; closing this reader
+		 * will no longer close it.
+		 * @return the reader this reader was made with.
+		 */
+		BufferedReader detach(){
+			detached = true;
+			return reader;
+		}
+
 		@Override
 		public void close() throws IOException {
-			reader.close();
+			if(!detached) {
+				reader.close();
+			}
 		}
 
 		@Override
@@ -556,6 +926,16 @@ public class CdkChemical2FactoryImpl implements ChemicalImplFactory{
 			Logger.getLogger(this.getClass().getName()).fine(
 					String.format("maxUndefinedStereoCenters: %s\n", params.get("maxUndefinedStereoCenters")));
 		}
+		if( params.get("sdfReaderThreads") != null ) {
+			setSdfReaderThreads((Integer)params.get("sdfReaderThreads"));
+			Logger.getLogger(this.getClass().getName()).fine(
+					String.format("sdfReaderThreads: %s\n", params.get("sdfReaderThreads")));
+		}
+		if( params.get("lazyFileSources") != null ) {
+			setLazyFileSources((Boolean)params.get("lazyFileSources"));
+			Logger.getLogger(this.getClass().getName()).fine(
+					String.format("lazyFileSources: %s\n", params.get("lazyFileSources")));
+		}
 	}
 
 	//crude heuristic
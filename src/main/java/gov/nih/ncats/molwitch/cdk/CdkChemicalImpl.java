@@ -30,6 +30,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -62,8 +63,6 @@ import org.openscience.cdk.geometry.cip.CIPTool;
 import org.openscience.cdk.geometry.cip.CIPToolMod;
 import org.openscience.cdk.graph.ConnectivityChecker;
 import org.openscience.cdk.graph.Cycles;
-import org.openscience.cdk.graph.GraphUtil;
-import org.openscience.cdk.graph.GraphUtil.EdgeToBondMap;
 import org.openscience.cdk.graph.invariant.Canon;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
@@ -74,8 +73,6 @@ import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.interfaces.IDoubleBondStereochemistry;
 import org.openscience.cdk.interfaces.IMolecularFormula;
 import org.openscience.cdk.interfaces.IPseudoAtom;
-import org.openscience.cdk.interfaces.IRing;
-import org.openscience.cdk.interfaces.IRingSet;
 import org.openscience.cdk.interfaces.IStereoElement;
 import org.openscience.cdk.interfaces.ITetrahedralChirality;
 import org.openscience.cdk.interfaces.ITetrahedralChirality.Stereo;
@@ -85,7 +82,7 @@ import org.openscience.cdk.isomorphism.matchers.IQueryBond;
 import org.openscience.cdk.isomorphism.matchers.QueryAtom;
 import org.openscience.cdk.isomorphism.matchers.QueryBond;
 import org.openscience.cdk.layout.StructureDiagramGenerator;
-import org.openscience.cdk.ringsearch.AllRingsFinder;
+import org.openscience.cdk.ringsearch.RingSearch;
 import org.openscience.cdk.sgroup.Sgroup;
 import org.openscience.cdk.sgroup.SgroupBracket;
 import org.openscience.cdk.sgroup.SgroupKey;
@@ -101,6 +98,8 @@ import org.openscience.cdk.tools.manipulator.MolecularFormulaManipulator;
 import org.openscience.cdk.tools.periodictable.PeriodicTable;
 
 import gov.nih.ncats.common.Tuple;
+import gov.nih.ncats.common.functions.BiIndexedConsumer;
+import gov.nih.ncats.common.functions.BiIntConsumer;
 import gov.nih.ncats.common.util.CachedSupplier;
 import gov.nih.ncats.common.util.CachedSupplierGroup;
 import gov.nih.ncats.common.util.Unchecked;
@@ -126,14 +125,14 @@ import gov.nih.ncats.molwitch.isotopes.Isotope;
 import gov.nih.ncats.molwitch.isotopes.NISTIsotopeFactory;
 import gov.nih.ncats.molwitch.spi.ChemicalImpl;
 
-import static org.openscience.cdk.geometry.cip.CIPToolMod.getSizeOfLargestRingSystem;
 
 public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	private static final Logger logger = Logger.getLogger("CdkChemicalImpl");
 
 	private final ConcurrentHashMap<IAtom, CdkAtom> atoms = new ConcurrentHashMap<>();
 	private final ConcurrentHashMap<IBond, CdkBond> bonds = new ConcurrentHashMap<>();
-	
+	private final ConcurrentHashMap<BondEndPoints, CdkBond> bondsByEndPoints = new ConcurrentHashMap<>();
+
 	private IAtomContainer container;
 	
 	private boolean isAromatic;
@@ -164,6 +163,8 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	}
 
 	//This parameter allows us to prevent a long calculation that enumerates all possibilities of undefined stereocenters.
+	//  It limits the size of the largest group of undefined stereocenters that can influence each other
+	//  (see StereocenterDefinability) not the total number of undefined stereocenters.
 	//  this should typically be set to values < 10
 	private static int maxUndefinedStereoCenters = 5;
 
@@ -219,8 +220,13 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 		
     }
 
+	/**
+	 * The adjacency list, bond map and degrees of the current version of the structure.
+	 */
+	CachedSupplier<GraphView> graphViewSupplier = CachedSupplier.of(()-> GraphView.of(container));
+
 	CachedSupplier<Boolean> complexitySupplier =CachedSupplier.of(()->{
-		int sizeOfLargestRingSystem = getSizeOfLargestRingSystem(this);
+		int sizeOfLargestRingSystem = getLargestRingSystemCircuitRank();
 		return sizeOfLargestRingSystem > complexityCutoff;
 	});
 
@@ -374,40 +380,24 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 
 	    	//TODO fix for potential cases
 
-	    	if(deepChirality && !potentialSet.isEmpty() && undefinedSet.size() <= maxUndefinedStereoCenters) {
+	    	//only the undefined centers that can influence each other
+	    	//are enumerated together, so the cap is on the largest such group
+	    	Optional<StereocenterDefinability> definability = deepChirality && !potentialSet.isEmpty()?
+					StereocenterDefinability.of(container, graphViewSupplier.get().getAdjacencyList()) : Optional.empty();
+	    	Optional<Set<Integer>> definable = Optional.empty();
+	    	if(definability.isPresent()) {
 	    		CdkChemicalImpl cimp2=this.deepCopy();
 	    		cimp2.setDeepChirality(false);
 				Chemical c22 = new Chemical(cimp2);
-		    	
-		    	Set<Integer> isDefinable = new HashSet<>();
-		    	for(long ii=0;ii<Math.pow(2, undefinedSet.size());ii++) {
-		    		cimp2.setDirty();
-					BitSet bs= BitSet.valueOf(new long[] {ii});
-		    		for(int ks=0;ks<undefinedSet.size();ks++) {
-		    			if(bs.get(ks)) {
-		    				c22.getAtom(undefinedSet.get(ks))
-		    				.setChirality(Chirality.R);
-		    			}else {
-		    				c22.getAtom(undefinedSet.get(ks))
-		    				.setChirality(Chirality.S);
-		    			}	    			
-		    		}
-		    		for(int ks=0;ks<undefinedSet.size();ks++) {
-		    			Chirality c=c22.getAtom(undefinedSet.get(ks)).getChirality();
-						//logger.fine(c.toString());
-		    			if(c.isDefined()) {
-		    				isDefinable.add(undefinedSet.get(ks));
-		    			}
-		    		}
-		    		if(isDefinable.size()==undefinedSet.size()) {
-		    			break;
-		    		}
-		    	}
+				definable = definability.get().findDefinable(c22, cimp2, undefinedSet, maxUndefinedStereoCenters);
+	    	}
+	    	if(definable.isPresent()) {
+	    		Set<Integer> isDefinable = definable.get();
 		    	for(int pi:potentialSet) {
 		    		if(isDefinable.contains(pi)) {
 		    			container.getAtom(pi).setProperty(CDKConstants.CIP_DESCRIPTOR, EITHER_STEREO);
 		    		}
-		    	}	    
+		    	}
 	    	} else {
 				for(int pi:potentialSet) {
 					container.getAtom(pi).setProperty(CDKConstants.CIP_DESCRIPTOR, EITHER_STEREO);
@@ -419,36 +409,31 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	    	return null;
     }
     	);
-    CachedSupplier<Integer> ringsSearcherSupplier = CachedSupplier.of(()->{
-		    	AllRingsFinder arf = new AllRingsFinder();
-		    	IRingSet ringSet;
-				try {
-					//max#Rings must not be > atomCount
-					ringSet = arf.findAllRingsInIsolatedRingSystem(container, Math.min(container.getAtomCount(),12));
-					for (int ir = 0; ir < ringSet.getAtomContainerCount(); ir++) {
-			            IRing ring = (IRing) ringSet.getAtomContainer(ir);
-			            for (int jr = 0; jr < ring.getAtomCount(); jr++) {
-			                IAtom aring = ring.getAtom(jr);
-			                aring.setIsInRing(true);
-			            }
-			            
-			            for (int jr = 0; jr < ring.getBondCount(); jr++) {
-			                IBond aring = ring.getBond(jr);
-			                aring.setIsInRing(true);
-			            }
-					}
-					return 1;
-				} catch (CDKException | IllegalArgumentException e) {
-					logger.warning(String.format("Error processing rigs in molecule with formula %s (%s; ring size limit %d)",
-							this.getFormula(), e.getMessage(), Math.min(container.getAtomCount(),12)));
-					return 0;
-				}
+	CachedSupplier<RingPerception> ringPerceptionSupplier = CachedSupplier.of(()-> RingPerception.of(container, graphViewSupplier.get()));
 
+	/**
+	 * Sets the isInRing flags of the atoms and bonds.
+	 */
+    CachedSupplier<Integer> ringsSearcherSupplier = CachedSupplier.of(()->{
+		ringPerceptionSupplier.get().applyRingFlags();
+		return 1;
     });
 
 
+	/**
+	 * Everything cached about this structure; reset when atoms or bonds are added or removed.
+	 */
 	private final CachedSupplierGroup cachedSupplierGroup = new CachedSupplierGroup();
+	/**
+	 * Just the caches that depend on the wedges of the bonds.
+	 */
+	private final CachedSupplierGroup stereoCachedSupplierGroup = new CachedSupplierGroup();
+	/**
+	 * The state of the current {@link #beginEdit()}; null if there isn't one.
+	 */
+	private BulkEditState bulkEditState;
 	private final ChemicalSource source;
+	private volatile boolean deferredCoordinates;
 	
 	
 	public CdkChemicalImpl(IAtomContainer container, Supplier<? extends ChemicalSource> source) {
@@ -477,9 +462,12 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 		this.source = source;
 		hydrogenAdder = CDKHydrogenAdder.getInstance(container.getBuilder());
 		cachedSupplierGroup.add(ringsSearcherSupplier);
+		cachedSupplierGroup.add(graphViewSupplier);
+		cachedSupplierGroup.add(ringPerceptionSupplier);
 		cachedSupplierGroup.add(cahnIngoldPrelogSupplier);
 		cachedSupplierGroup.add(perceiveAtomTypesOfNonQueryAtoms);
 		cachedSupplierGroup.add(complexitySupplier);
+		stereoCachedSupplierGroup.add(cahnIngoldPrelogSupplier);
 	}
 	
 
@@ -532,58 +520,93 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 
 	@Override
 	public List<Chemical> permuteEpimers() {
-		List<Chemical> results = new ArrayList<>();
-		for( TetrahedralChirality potentialChiralCenter : this.getTetrahedrals()){
-			if( potentialChiralCenter.getChirality() ==Chirality.Parity_Either) {
-				Optional<CdkChemicalImpl> clone1 = createChiralClone(potentialChiralCenter, Bond.Stereo.UP);
-				if( clone1.isPresent()) results.add(new Chemical(clone1.get()));
-				Optional<CdkChemicalImpl> clone2 = createChiralClone(potentialChiralCenter, Bond.Stereo.DOWN);
-				if( clone2.isPresent()) results.add(new Chemical(clone2.get()));
-			}
-		}
-		return results;
+		return epimers().collect(Collectors.toList());
+	}
+
+	/**
+	 * The epimers of this structure: for each center with undefined chirality,
+	 * a copy with that center wedged up and a copy with it wedged down.
+	 * This is the same as {@link #permuteEpimers()} but each copy is only made when the
+	 * Stream gets to it, so a caller that handles them one at a time only
+	 * keeps one copy of the structure alive at once.
+	 *
+	 * @return a new Stream of the epimers; will be empty if there are none.
+	 */
+	public Stream<Chemical> epimers() {
+		return getTetrahedrals().stream()
+				.filter(center -> center.getChirality() == Chirality.Parity_Either)
+				.flatMap(center -> Stream.of(Bond.Stereo.UP, Bond.Stereo.DOWN)
+						.map(stereo -> createChiralClone(center, stereo))
+						.flatMap(Optional::stream))
+				.map(Chemical::new);
 	}
 
 	@Override
 	public List<Chemical> permuteEpimersAndEnantiomers() {
-		List<Chemical> epimers = permuteEpimers();
-		if( !epimers.isEmpty()) {
-			return epimers;
+		return epimersAndEnantiomers().collect(Collectors.toList());
+	}
+
+	/**
+	 * Same as {@link #permuteEpimersAndEnantiomers()} but the epimers are made
+	 * one at a time as the Stream gets to them, see {@link #epimers()}.
+	 *
+	 * @return a new Stream of the epimers if there are any, otherwise this structure
+	 * and its enantiomer, or just this structure if it is the same as its enantiomer.
+	 */
+	public Stream<Chemical> epimersAndEnantiomers() {
+		boolean hasEpimers = getTetrahedrals().stream()
+				.anyMatch(center -> center.getChirality() == Chirality.Parity_Either
+						&& findFlippableBond(center).isPresent());
+		if(hasEpimers) {
+			return epimers();
 		}
 
 		Chemical enantiomer = flipAllChiralCenters();
         try {
             if( !equivalentTo(enantiomer)) {
-				return Arrays.asList(new Chemical(this), enantiomer);
+				return Stream.of(new Chemical(this), enantiomer);
 			}
         } catch (IOException | MolwitchException e) {
 			Logger.getLogger(this.getClass().getName()).warning("Error checking chemical equivalence");
 		}
-		return Collections.singletonList(new Chemical(this));
+		return Stream.of(new Chemical(this));
 	}
 
-	private Optional<CdkChemicalImpl> createChiralClone(TetrahedralChirality center, Bond.Stereo stereo) {
-		CdkChemicalImpl epimer = this.deepCopy();
-		Atom centralAtom = epimer.getAtom(center.getCenterAtom().getAtomIndexInParent());
-		Optional<? extends Bond> flippableBond = centralAtom.getBonds().stream()
+	/**
+	 * Find a single bond with no stereo on the center of the given chirality
+	 * that can be wedged to define it.
+	 */
+	private Optional<? extends Bond> findFlippableBond(TetrahedralChirality center) {
+		Atom centralAtom = getAtom(center.getCenterAtom().getAtomIndexInParent());
+		return centralAtom.getBonds().stream()
 				.filter(b->b.getBondType().equals(BondType.SINGLE))
 				.filter(b->b.getStereo().equals(Bond.Stereo.NONE))
 				.findFirst();
+	}
+
+	private Optional<CdkChemicalImpl> createChiralClone(TetrahedralChirality center, Bond.Stereo stereo) {
+		//look for the bond on this structure first so we don't copy it for nothing
+		Optional<? extends Bond> flippableBond = findFlippableBond(center);
 		if( flippableBond.isEmpty() ) {
 			logger.warning("unable to find a single unmarked bond to flip for center ");
 			return Optional.empty();
 		}
-		if(flippableBond.get().getAtom1().getAtomIndexInParent()==centralAtom.getAtomIndexInParent()){
+		boolean centerIsAtom1 = flippableBond.get().getAtom1().getAtomIndexInParent()==center.getCenterAtom().getAtomIndexInParent();
+		int bondIndex = container.indexOf(CdkBond.getIBondFor(flippableBond.get()));
+
+		CdkChemicalImpl epimer = this.deepCopy();
+		Bond epimerBond = epimer.getBond(bondIndex);
+		if(centerIsAtom1){
 			if( stereo == Bond.Stereo.UP){
-				flippableBond.get().setStereo(Bond.Stereo.UP);
+				epimerBond.setStereo(Bond.Stereo.UP);
 			} else {
-				flippableBond.get().setStereo(Bond.Stereo.DOWN);
+				epimerBond.setStereo(Bond.Stereo.DOWN);
 			}
 		}else {
 			if( stereo == Bond.Stereo.UP){
-				flippableBond.get().setStereo(Bond.Stereo.UP_INVERTED);
+				epimerBond.setStereo(Bond.Stereo.UP_INVERTED);
 			} else {
-				flippableBond.get().setStereo(Bond.Stereo.DOWN_INVERTED);
+				epimerBond.setStereo(Bond.Stereo.DOWN_INVERTED);
 			}
 		}
 		epimer.cahnIngoldPrelogSupplier.resetCache();
@@ -603,6 +626,18 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 		return new Chemical(flipped);
 	}
 
+	/**
+	 * The number of independent rings (the circuit rank) of the largest ring system,
+	 * where a ring system is the set of atoms joined by ring bonds.
+	 * This is computed in linear time from the adjacency of the atoms and cached
+	 * until the structure changes.
+	 *
+	 * @return the circuit rank of the largest ring system; 0 if there are no rings.
+	 */
+	public int getLargestRingSystemCircuitRank() {
+		return ringPerceptionSupplier.get().getRingSystems().getLargestCircuitRank();
+	}
+
 	public void setDeepChirality(boolean chir) {
 		this.deepChirality=chir;
 	}
@@ -623,19 +658,7 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	// a particular bond/atom. Perhaps that's where
 	// this came from?
 	public int getSmallestRingSize() {
-		IRingSet ringSet = Cycles.sssr(container).toRingSet();
-		int numRings = ringSet.getAtomContainerCount();
-		if(numRings ==0) {
-			return 0;
-		}
-		int minSize=Integer.MAX_VALUE;
-		for(int i=0; i< numRings; i++) {
-			int s = ringSet.getAtomContainer(i).getAtomCount();
-			if(s < minSize) {
-				minSize= s;
-			}
-		}
-		return minSize;
+		return ringPerceptionSupplier.get().getSmallestRingSize();
 	}
 	/**
 	 * Get the {@link IAtomContainer}.
@@ -649,7 +672,9 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	@Override
 	public CdkChemicalImpl shallowCopy() {
 		//shallow copy shares original atoms and bond objects
-		return new CdkChemicalImpl(CdkUtil.getChemObjectBuilder().newInstance(IAtomContainer.class, container), source);
+		CdkChemicalImpl copy = new CdkChemicalImpl(CdkUtil.getChemObjectBuilder().newInstance(IAtomContainer.class, container), source);
+		copy.deferredCoordinates = deferredCoordinates;
+		return copy;
 		
 	}
 	@Override
@@ -668,7 +693,9 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	    //
 	    
         try {
-            return new CdkChemicalImpl(container.clone(), source);
+            CdkChemicalImpl copy = new CdkChemicalImpl(container.clone(), source);
+            copy.deferredCoordinates = deferredCoordinates;
+            return copy;
         } catch (CloneNotSupportedException e) {
             throw new IllegalStateException(e);
         }
@@ -726,7 +753,128 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	protected void setDirty() {
 
 		cachedSupplierGroup.resetCache();
-		container.notifyChanged();
+		notifyChanged();
+	}
+
+	/**
+	 * Only the stereo of a bond changed: the rings, atom types
+	 * and complexity don't depend on that so only the CIP labels are reset.
+	 */
+	void setStereoDirty() {
+		stereoCachedSupplierGroup.resetCache();
+		notifyChanged();
+	}
+
+	private void notifyChanged(){
+		if(bulkEditState !=null){
+			bulkEditState.changed = true;
+		}else{
+			container.notifyChanged();
+		}
+	}
+
+	/**
+	 * Start a batch of edits to this structure.  Until the returned BulkEdit is committed
+	 * adding bonds doesn't recompute atom types or implicit hydrogens, doesn't look for
+	 * new rings and the container listeners aren't notified of each change.
+	 * {@link BulkEdit#commit()} does all that in one pass over the atoms that were touched.
+	 * Implicit hydrogen counts of the atoms being edited may be out of date until then.
+	 * Edits can be nested, only committing the outermost one does the work.
+	 *
+	 * Closing the BulkEdit commits it so it can be used in a try-with-resources block.
+	 *
+	 * <pre>
+	 * try(BulkEdit edit = impl.beginEdit()){
+	 *     //add lots of atoms and bonds
+	 * }
+	 * </pre>
+	 *
+	 * @return a BulkEdit to commit or close when the edits are done.
+	 */
+	public BulkEdit beginEdit() {
+		if(bulkEditState ==null){
+			bulkEditState = new BulkEditState();
+		}
+		bulkEditState.depth++;
+		return new BulkEdit();
+	}
+
+	/**
+	 * Is there a {@link #beginEdit()} that hasn't been committed yet.
+	 * @return {@code true} if in the middle of a batch of edits.
+	 */
+	public boolean isEditing() {
+		return bulkEditState !=null;
+	}
+
+	private static final class BulkEditState{
+		private int depth;
+		private boolean changed;
+		private final Set<IAtom> touchedAtoms = Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	/**
+	 * A batch of edits started by {@link #beginEdit()}.
+	 */
+	public final class BulkEdit implements AutoCloseable{
+		private boolean committed;
+
+		private BulkEdit() {
+		}
+
+		/**
+		 * Finish this batch of edits; if it's the outermost one the atom types and implicit
+		 * hydrogens of the atoms touched are recomputed and the container listeners are notified.
+		 * Committing more than once does nothing.
+		 */
+		public void commit() {
+			if(committed){
+				return;
+			}
+			committed = true;
+			BulkEditState state = bulkEditState;
+			if(--state.depth > 0){
+				return;
+			}
+			bulkEditState = null;
+			List<IAtom> touched = new ArrayList<>(state.touchedAtoms.size());
+			for(IAtom a : state.touchedAtoms){
+				//skip atoms removed after they were touched
+				if(container.indexOf(a) >=0){
+					touched.add(a);
+				}
+			}
+			if(!touched.isEmpty()){
+				bondsAdded(touched, anyInRing(touched));
+			}
+			if(state.changed){
+				container.notifyChanged();
+			}
+		}
+
+		/**
+		 * Same as {@link #commit()}.
+		 */
+		@Override
+		public void close() {
+			commit();
+		}
+	}
+
+	/**
+	 * A new bond can only have made a ring if both its atoms are now in a ring so
+	 * if none of the atoms touched are in a ring the ring membership of
+	 * every atom is the same as before.  One ring search over the whole structure is
+	 * cheaper than checking each new bond when there are a lot of them.
+	 */
+	private boolean anyInRing(List<IAtom> atoms){
+		RingSearch ringSearch = new RingSearch(container);
+		for(IAtom a : atoms){
+			if(ringSearch.cyclic(a)){
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
@@ -811,6 +959,11 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	}
 	
 	private int getDim() {
+		computeDeferredCoordinates();
+		return getCurrentDim();
+	}
+
+	private int getCurrentDim() {
 		boolean has2dCoords=true;
         boolean has3dCoords = true;
         for(IAtom atom : container.atoms()){
@@ -852,19 +1005,45 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	CdkBond getCdkBondFor(IBond bond){
 
         //IBond doesn't implement equals or hashcode()!!!!
-        //
-        for(Entry<IBond, CdkBond> entry : bonds.entrySet()){
-            IBond key = entry.getKey();
-            if(  (bond.getAtom(0).equals(key.getAtom(0)) && bond.getAtom(1).equals(key.getAtom(1)) )
-                || (bond.getAtom(1).equals(key.getAtom(0)) && bond.getAtom(0).equals(key.getAtom(1)))
-            ){
-                return entry.getValue();
-            }
+        //so 2 different IBond objects between the same atoms
+        //have to be looked up by their end points to get the same wrapper.
+        //Keying on the (unordered) atom pair keeps that lookup constant time
+        //instead of scanning every wrapper we ever made.
+        IAtom a1 = bond.getAtom(0);
+        IAtom a2 = bond.getAtom(1);
+        if(a1 ==null || a2 ==null){
+            return bonds.computeIfAbsent(bond, b -> new CdkBond(b, this));
         }
-		return bonds.computeIfAbsent(bond, b ->{
-        //    System.out.println("creating new cdk wrapper bond for " + b);
-            return  new CdkBond(b, this);
-        });
+        return bondsByEndPoints.computeIfAbsent(new BondEndPoints(a1, a2),
+                k -> bonds.computeIfAbsent(bond, b -> new CdkBond(b, this)));
+	}
+
+	/**
+	 * Unordered pair of atoms used as the key to find
+	 * the {@link CdkBond} wrapper between 2 atoms.
+	 */
+	private static final class BondEndPoints{
+		private final IAtom a1, a2;
+
+		BondEndPoints(IAtom a1, IAtom a2) {
+			this.a1 = a1;
+			this.a2 = a2;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof BondEndPoints)) return false;
+			BondEndPoints other = (BondEndPoints) o;
+			return (a1.equals(other.a1) && a2.equals(other.a2))
+					|| (a1.equals(other.a2) && a2.equals(other.a1));
+		}
+
+		@Override
+		public int hashCode() {
+			//must be symmetric
+			return a1.hashCode() ^ a2.hashCode();
+		}
 	}
 	
 	List<CdkBond> getBondsFor(IAtom atom){
@@ -1195,8 +1374,49 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 		//TODO
 		
 	}
+	/**
+	 * Put off the 2D layout of this structure until the coordinates are needed:
+	 * the first time the coordinates of an atom are read or set, {@link #hasCoordinates()}
+	 * (or the 2D/3D versions) is called, {@link #generateCoordinates()} is called
+	 * or it is written out as a MOL or SDF record.
+	 */
+	void deferCoordinates(){
+		deferredCoordinates = true;
+	}
+
+	/**
+	 * Is the 2D layout of this structure still waiting to be done.
+	 * @return {@code true} if the coordinates have been put off and not asked for yet.
+	 */
+	public boolean hasDeferredCoordinates(){
+		return deferredCoordinates;
+	}
+
+	/**
+	 * Compute the 2D coordinates now if they were put off; does nothing otherwise.
+	 */
+	public void computeDeferredCoordinates(){
+		if(!deferredCoordinates){
+			return;
+		}
+		synchronized (this){
+			if(!deferredCoordinates){
+				return;
+			}
+			deferredCoordinates = false;
+			try {
+				StructureDiagramGenerator coordinateGenerator = new StructureDiagramGenerator(container);
+				coordinateGenerator.generateCoordinates();
+				container = coordinateGenerator.getMolecule();
+			} catch (CDKException e) {
+				logger.warning(String.format("error computing deferred coordinates: %s", e.getMessage()));
+			}
+		}
+	}
+
 	@Override
 	public void generateCoordinates() throws MolwitchException{
+		deferredCoordinates = false;
 		try {
 			StructureDiagramGenerator coordinateGenerator = new StructureDiagramGenerator(container);
 			doWithQueryFixes(coordinateGenerator::generateCoordinates,false);
@@ -1242,6 +1462,11 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 
 
 	private void makeStereoElms() {
+		if(deferredCoordinates){
+			//there are no coordinates to make them from yet; the stereo elements
+			//the structure was made with (from the InChI) are the ones to keep
+			return;
+		}
 	    Map<IAtom, Integer> nullImplicitHydrogenAtoms = new HashMap<>();
 	    List<String> nullImplicitHydrogenAtomDescriptions = new ArrayList<>();
 	    boolean has3dCoords = true;
@@ -1576,10 +1801,13 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	@Override
 	public Bond addBond(Bond b) {
 		IBond ibond = CdkBond.getIBondFor(b);
+		IAtom atom1 = ((CdkAtom)b.getAtom1()).getAtom();
+		IAtom atom2 = ((CdkAtom)b.getAtom2()).getAtom();
+		//during a batch edit new rings are looked for once on commit
+		boolean closesRing = bulkEditState ==null && isConnected(atom1, atom2);
 		container.addBond(ibond);
 		setDirty();
-		setImplicitHydrogens(((CdkAtom)b.getAtom1()).getAtom());
-        setImplicitHydrogens(((CdkAtom)b.getAtom2()).getAtom());
+		bondAdded(atom1, atom2, closesRing);
 		return getCdkBondFor(ibond);
 	}
 
@@ -1653,13 +1881,119 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	        bond.getEnd().setIsAromatic(true);
 	        bond.setIsAromatic(true);
 		}
+		boolean closesRing = bulkEditState ==null && isConnected(bond.getBegin(), bond.getEnd());
 		container.addBond( bond);
 	
-		setImplicitHydrogens(((CdkAtom)atom1).getAtom());
-		setImplicitHydrogens(((CdkAtom)atom2).getAtom());
+		bondAdded(((CdkAtom)atom1).getAtom(), ((CdkAtom)atom2).getAtom(), closesRing);
 		setDirty();
 		return getCdkBondFor(bond);
 	}
+
+	/**
+	 * Recompute the atom types and implicit hydrogens affected by a new bond
+	 * or save the atoms for later if there is a bulk edit going on.
+	 */
+	private void bondAdded(IAtom atom1, IAtom atom2, boolean closesRing){
+		if(bulkEditState !=null){
+			bulkEditState.touchedAtoms.add(atom1);
+			bulkEditState.touchedAtoms.add(atom2);
+			return;
+		}
+		bondsAdded(Arrays.asList(atom1, atom2), closesRing);
+	}
+
+	private void bondsAdded(List<IAtom> touchedAtoms, boolean closedRing){
+		//the old counts are too high for the new bonds and would stop the atom types from matching
+		for(IAtom a : touchedAtoms){
+			a.setImplicitHydrogenCount(null);
+		}
+		try {
+			if(closedRing || touchedAtoms.size() *2 >= container.getAtomCount()){
+				//ring membership of atoms anywhere around the new ring may have changed
+				//and some atom types depend on it; or so much changed that
+				//it's cheaper to do everything at once
+				percieveAllAtomTypes();
+			}else{
+				//an atom type only depends on the atom, its bonds and its neighbors' bonds
+				//so only the touched atoms and their neighbors can change
+				percieveAtomTypes(touchedAtoms, true);
+			}
+		} catch (CDKException e) {
+			throw new RuntimeException(e);
+		}
+		for(IAtom a : touchedAtoms){
+			setImplicitHydrogens(a, false);
+		}
+	}
+
+	/**
+	 * Same as {@link AtomContainerManipulator#percieveAtomTypesAndConfigureAtoms(IAtomContainer)}
+	 * but shares one ring search for all the atoms instead of making a new one for each atom
+	 * that needs to know if it is in a ring.
+	 */
+	private void percieveAllAtomTypes() throws CDKException{
+		CDKAtomTypeMatcher matcher = CDKAtomTypeMatcher.getInstance(container.getBuilder());
+		IAtomType[] types = matcher.findMatchingAtomTypes(container);
+		for(int i=0; i< types.length; i++){
+			if(types[i] !=null){
+				AtomTypeManipulator.configure(container.getAtom(i), types[i]);
+			}
+		}
+	}
+
+	/**
+	 * Perceive and configure the atom types of just the given atoms.
+	 * @param atoms the atoms.
+	 * @param includeNeighbors also do the atoms bonded to them.
+	 */
+	private void percieveAtomTypes(Collection<IAtom> atoms, boolean includeNeighbors) throws CDKException{
+		CDKAtomTypeMatcher matcher = CDKAtomTypeMatcher.getInstance(container.getBuilder());
+		Set<IAtom> done = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(IAtom a : atoms){
+			percieveAtomType(matcher, a, done);
+			if(includeNeighbors){
+				for(IAtom neighbor : container.getConnectedAtomsList(a)){
+					percieveAtomType(matcher, neighbor, done);
+				}
+			}
+		}
+	}
+
+	private void percieveAtomType(CDKAtomTypeMatcher matcher, IAtom atom, Set<IAtom> done) throws CDKException{
+		if(!done.add(atom)){
+			return;
+		}
+		IAtomType matched = matcher.findMatchingAtomType(container, atom);
+		if(matched !=null){
+			AtomTypeManipulator.configure(atom, matched);
+		}
+	}
+
+	/**
+	 * Are the 2 atoms already connected by some path of bonds.
+	 * If they are a new bond between them makes a ring.
+	 */
+	private boolean isConnected(IAtom atom1, IAtom atom2){
+		if(container.getConnectedBondsCount(atom1) ==0 || container.getConnectedBondsCount(atom2) ==0){
+			//usual case when building up a structure one atom at a time
+			return false;
+		}
+		Set<IAtom> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<IAtom> queue = new ArrayList<>();
+		queue.add(atom1);
+		visited.add(atom1);
+		for(int i=0; i< queue.size(); i++){
+			for(IAtom neighbor : container.getConnectedAtomsList(queue.get(i))){
+				if(neighbor.equals(atom2)){
+					return true;
+				}
+				if(visited.add(neighbor)){
+					queue.add(neighbor);
+				}
+			}
+		}
+		return false;
+	}
 	protected void setImplicitHydrogens(){
 		try {
             AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(container);
@@ -1672,11 +2006,24 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 	    return setImplicitHydrogens(getCdkAtomFor(atom));
 	}
 	protected int setImplicitHydrogens(CdkAtom catom){
+		return setImplicitHydrogens(catom, true);
+	}
+	private int setImplicitHydrogens(IAtom atom, boolean percieveAtomType){
+	    return setImplicitHydrogens(getCdkAtomFor(atom), percieveAtomType);
+	}
+	/**
+	 * Compute the implicit hydrogen count of one atom.
+	 * @param percieveAtomType perceive the type of the atom first; only the type
+	 *                         of this atom is needed, not the whole container.
+	 */
+	private int setImplicitHydrogens(CdkAtom catom, boolean percieveAtomType){
 
         IAtom atom = catom.getAtom();
 	    try {
 	        atom.setImplicitHydrogenCount(null);
-	        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(container);
+	        if(percieveAtomType){
+	        	percieveAtomTypes(Collections.singletonList(atom), false);
+	        }
             hydrogenAdder.addImplicitHydrogens(container, atom);
             Integer cc= atom.getImplicitHydrogenCount();
             
@@ -1799,7 +2146,7 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 
 	@Override
 	public GraphInvariant getGraphInvariant() {
-		int[][] g = GraphUtil.toAdjList(container);
+		int[][] g = graphViewSupplier.get().getAdjacencyList();
 		long[] inv =Canon.basicInvariants(container, g);
 		return new CdkGraphInvariant(inv);
 	}
@@ -1810,44 +2157,82 @@ public class CdkChemicalImpl implements ChemicalImpl<CdkChemicalImpl>{
 		return getCdkBondFor(container.getBond(i));
 	}
 
+	/**
+	 * The BondTable of the current version of this structure.  It is backed by
+	 * the cached adjacency list and bond map, so asking for it again without changing
+	 * the structure doesn't rebuild anything.
+	 */
 	@Override
-	public BondTable getBondTable() {
-		EdgeToBondMap bondMap = EdgeToBondMap.withSpaceFor(container);
-		//bondMap is empty! need to populate it
-		
-		//only way appears to be to use adjList
-		//then throw out the adjacency list
-		//this is all because bondMap.put(i, j, bond) is private!
-		
-		GraphUtil.toAdjList(container, bondMap);
-		
-		return new CdkBondTable(bondMap);
+	public CdkBondTable getBondTable() {
+		return new CdkBondTable(graphViewSupplier.get());
 	}
 
-	private class CdkBondTable implements BondTable{
+	/**
+	 * A {@link BondTable} that also gives the adjacency list and degrees
+	 * it was built from.
+	 */
+	public final class CdkBondTable implements BondTable{
 
-		private final EdgeToBondMap bondMap ;
+		private final GraphView graphView;
 		
-		public CdkBondTable(EdgeToBondMap bondMap) {
-			this.bondMap = bondMap;
+		private CdkBondTable(GraphView graphView) {
+			this.graphView = graphView;
 		}
 
 		@Override
 		public Bond getBond(int i, int j) {
-			return CdkChemicalImpl.this.getCdkBondFor(bondMap.get(i, j));
+			return CdkChemicalImpl.this.getCdkBondFor(graphView.getBond(i, j));
 		}
 
 		@Override
 		public boolean bondExists(int i, int j) {
-			return bondMap.get(i, j) !=null;
+			return graphView.getBond(i, j) !=null;
 		}
 
 		@Override
 		public int getAtomCount() {
-			return CdkChemicalImpl.this.getAtomCount();
+			return graphView.getAtomCount();
+		}
+
+		/**
+		 * The indexes of the atoms bonded to each atom.
+		 * @return the shared adjacency list; do not modify.
+		 */
+		public int[][] getAdjacencyList() {
+			return graphView.getAdjacencyList();
+		}
+
+		/**
+		 * The number of atoms bonded to the given atom.
+		 * @param i the index of the atom.
+		 * @return the degree.
+		 */
+		public int getDegree(int i) {
+			return graphView.getDegree(i);
+		}
+
+		/**
+		 * Same order as the default (both directions of each bond, by row then column)
+		 * but only visits the bonds that exist instead of every pair of atoms.
+		 */
+		@Override
+		public void existingBonds(BiIntConsumer consumer) {
+			forEachNeighbor(consumer);
+		}
+
+		@Override
+		public void existingBonds(BiIndexedConsumer<Bond> consumer) {
+			forEachNeighbor((i, j)-> consumer.accept(i, j, getBond(i, j)));
+		}
+
+		private void forEachNeighbor(BiIntConsumer consumer) {
+			int[][] adj = graphView.getSortedAdjacencyList();
+			for(int i=0; i< adj.length; i++){
+				for(int j : adj[i]){
+					consumer.accept(i, j);
+				}
+			}
 		}
-		
-		
 	}
 
 	interface CDKStereocenter{
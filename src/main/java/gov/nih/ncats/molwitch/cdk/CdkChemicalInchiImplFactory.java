@@ -21,8 +21,20 @@
 
 package gov.nih.ncats.molwitch.cdk;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import gov.nih.ncats.molwitch.Atom;
 import io.github.dan2097.jnainchi.InchiFlag;
@@ -50,9 +62,78 @@ import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
 
 public class CdkChemicalInchiImplFactory implements InchiImplFactory{
 
+	private static final Logger logger = Logger.getLogger("CdkChemicalInchiImplFactory");
+
+	/**
+	 * The default max number of results kept by {@link #getResultCache()}.
+	 */
+	public static final int DEFAULT_RESULT_CACHE_SIZE = 10_000;
+
+	private static final InchiResultCache RESULT_CACHE = new InchiResultCache(DEFAULT_RESULT_CACHE_SIZE);
+
 	private final InChIGeneratorFactory factory;
 	//CDK by default turns of auxInfo
 	private static InchiOptions MOLWITCH_INCHI_OPTIONS = new InchiOptions.InchiOptionsBuilder().build();
+
+	/**
+	 * The default max time in seconds to wait for each structure in {@link #asStdInchi(List)}.
+	 */
+	public static final long DEFAULT_BATCH_TIMEOUT_SECONDS = 60;
+
+	/**
+	 * The shared worker pool, made the first time a batch is computed.
+	 */
+	private static final class DefaultWorkerPool{
+		private static final int THREADS = Runtime.getRuntime().availableProcessors();
+		static final InchiWorkerPool INSTANCE = new InchiWorkerPool(new CdkChemicalInchiImplFactory(), THREADS, THREADS * 4);
+	}
+
+	/**
+	 * The worker pool shared by every CdkChemicalInchiImplFactory for batches;
+	 * use it to check the queue depth, failure counts and timings.
+	 * It has one worker per processor.
+	 * @return the InchiWorkerPool.
+	 */
+	public static InchiWorkerPool getWorkerPool() {
+		return DefaultWorkerPool.INSTANCE;
+	}
+
+	/**
+	 * Compute the standard InChI of each of the given structures on the shared
+	 * {@link #getWorkerPool() worker pool} waiting at most {@value #DEFAULT_BATCH_TIMEOUT_SECONDS} seconds for each.
+	 *
+	 * @param chemicals the structures; can not be null or contain nulls.
+	 * @return a List the same size and order as chemicals with the result for each;
+	 * a structure that fails or times out gets an ERROR result with the reason as the message.
+	 * @see InchiWorkerPool#asStdInchi(List, long, TimeUnit)
+	 */
+	public List<InChiResult> asStdInchi(List<Chemical> chemicals) {
+		return asStdInchi(chemicals, DEFAULT_BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Compute the standard InChI of each of the given structures on the shared
+	 * {@link #getWorkerPool() worker pool}.
+	 *
+	 * @param chemicals the structures; can not be null or contain nulls.
+	 * @param timeout the max time to wait for each structure.
+	 * @param unit the unit of the timeout.
+	 * @return a List the same size and order as chemicals with the result for each;
+	 * a structure that fails or times out gets an ERROR result with the reason as the message.
+	 * @see InchiWorkerPool#asStdInchi(List, long, TimeUnit)
+	 */
+	public List<InChiResult> asStdInchi(List<Chemical> chemicals, long timeout, TimeUnit unit) {
+		return getWorkerPool().asStdInchi(chemicals, timeout, unit);
+	}
+
+	/**
+	 * The cache of computed InChIs shared by every CdkChemicalInchiImplFactory;
+	 * use it to check the hit and miss counts.
+	 * @return the InchiResultCache.
+	 */
+	public static InchiResultCache getResultCache() {
+		return RESULT_CACHE;
+	}
 	public CdkChemicalInchiImplFactory() {
 		try {
 			factory = InChIGeneratorFactory.getInstance();
@@ -88,38 +169,56 @@ public class CdkChemicalInchiImplFactory implements InchiImplFactory{
 	@Override
 	public InChiResult asStdInchi(Chemical chemical, boolean trustCoordinates) throws IOException {
 		try {
-			//need to pass list options (even empty) to get AuxInfo...
+			return computeStdInchi(chemical);
+		} catch (Throwable e) {
+			logger.log(Level.FINE, "could not compute InChI for " + chemical.getName(), e);
+			throw new IOException("error computing Inchi for " + chemical.toSmarts(), e);
+		} 
+	}
+
+	/**
+	 * Compute the standard InChI of the given Chemical without any error reporting,
+	 * used by {@link #asStdInchi(Chemical, boolean)} and the {@link InchiWorkerPool}.
+	 */
+	InChiResult computeStdInchi(Chemical chemical) throws CDKException, IOException {
+		//need to pass list options (even empty) to get AuxInfo...
 //			System.out.println("computing inchi for " + (chemical.getSource().isPresent()? chemical.getSource().get().getData() : "NO SOURCE"));
 //			chemical.aromatize();
-			
-			Chemical ichem=handleQueryAtoms(chemical);
-			ichem.kekulize();
-			
-			InChIGenerator gen = factory.getInChIGenerator(CdkUtil.toAtomContainer(ichem), MOLWITCH_INCHI_OPTIONS);
 		
-			InChiResult.Status status = toChemkitStatus(gen.getStatus());
+		Chemical ichem=handleQueryAtoms(chemical);
+		//kekulize before looking in the cache so the chemical passed in
+		//is changed the same way whether it's a hit or not
+		ichem.kekulize();
+
+		String key = InchiResultCache.keyFor(CdkUtil.toAtomContainer(ichem));
+		InChiResult cached = RESULT_CACHE.get(key);
+		if(cached !=null){
+			return cached;
+		}
+
+		InChIGenerator gen = factory.getInChIGenerator(CdkUtil.toAtomContainer(ichem), MOLWITCH_INCHI_OPTIONS);
+	
+		InChiResult.Status status = toChemkitStatus(gen.getStatus());
 //			System.out.println("INCHI STATUS =  " + status);
-			String inchi = gen.getInchi();
-			if(inchi ==null){
-				return new InChiResult.Builder(status)
-						.setAuxInfo(gen.getAuxInfo()==null?"":gen.getAuxInfo())
-						.setInchi("")
-						.setKey("")
-						.setMessage(gen.getLog()==null? "":gen.getLog())
-						.build();
-			}
-			return new InChiResult.Builder(status)
-						.setAuxInfo(gen.getAuxInfo()==null?"":gen.getAuxInfo())
-						.setInchi(gen.getInchi()==null?"":gen.getInchi())
-						.setKey(gen.getInchiKey()==null?"" :gen.getInchiKey())
-						.setMessage(gen.getLog()==null? "":gen.getLog())
-						.build();
-			
-		
-		} catch (Throwable e) {
-			e.printStackTrace();
-			throw new IOException("error computing Inchi for " + chemical.toSmarts(), e);
-		} 
+		String inchi = gen.getInchi();
+		InChiResult result;
+		if(inchi ==null){
+			result = new InChiResult.Builder(status)
+					.setAuxInfo(gen.getAuxInfo()==null?"":gen.getAuxInfo())
+					.setInchi("")
+					.setKey("")
+					.setMessage(gen.getLog()==null? "":gen.getLog())
+					.build();
+		}else {
+			result = new InChiResult.Builder(status)
+					.setAuxInfo(gen.getAuxInfo()==null?"":gen.getAuxInfo())
+					.setInchi(gen.getInchi()==null?"":gen.getInchi())
+					.setKey(gen.getInchiKey()==null?"" :gen.getInchiKey())
+					.setMessage(gen.getLog()==null? "":gen.getLog())
+					.build();
+		}
+		RESULT_CACHE.put(key, result);
+		return result;
 	}
 
 	private InChiResult.Status toChemkitStatus(InchiStatus returnStatus) {
@@ -133,15 +232,35 @@ public class CdkChemicalInchiImplFactory implements InchiImplFactory{
 	}
 	@Override
 	public Chemical parseInchi(String inchi) throws IOException {
+		return parseInchi(inchi, false);
+	}
+
+	/**
+	 * Parse the given InChI.
+	 *
+	 * @param inchi the InChI to parse.
+	 * @param deferCoordinates if {@code true} the 2D layout of the structure is
+	 *                         not done until the coordinates are first needed
+	 *                         (see {@link CdkChemicalImpl#computeDeferredCoordinates()});
+	 *                         things like the formula, mass, SMILES or fingerprints never need them.
+	 *                         If {@code false} the layout is done now like {@link #parseInchi(String)}.
+	 * @return a new Chemical.
+	 * @throws IOException if the InChI can not be parsed.
+	 */
+	public Chemical parseInchi(String inchi, boolean deferCoordinates) throws IOException {
 		try {
 			InChIToStructure toStruc= factory.getInChIToStructure(inchi, DefaultChemObjectBuilder.getInstance());
 		
 			if(toStruc.getStatus() == InchiStatus.SUCCESS || toStruc.getStatus() == InchiStatus.WARNING) {
-				
-				return ChemicalBuilder._fromImpl(new CdkChemicalImpl( toStruc.getAtomContainer(), new StringSource(inchi, Type.INCHI)))
-								.computeCoordinates(true)
+				CdkChemicalImpl impl = new CdkChemicalImpl( toStruc.getAtomContainer(), new StringSource(inchi, Type.INCHI));
+				Chemical chemical = ChemicalBuilder._fromImpl(impl)
+								.computeCoordinates(!deferCoordinates)
 //								.computeStereo(true)
 								.build();
+				if(deferCoordinates){
+					impl.deferCoordinates();
+				}
+				return chemical;
 							
 			}
 			throw new IOException("error trying to parse inchi '"+ inchi + "' : " + toStruc.getMessage());
@@ -151,4 +270,65 @@ public class CdkChemicalInchiImplFactory implements InchiImplFactory{
 		}
 	}
 
+	/**
+	 * Parse an InChI file one line at a time.  Each line that starts with {@code InChI=}
+	 * is parsed; anything after the InChI on the same line (separated by whitespace)
+	 * is used as the name of the structure.  All other lines, like AuxInfo lines,
+	 * are skipped.  Nothing is read until the Stream is consumed and the reader is
+	 * not closed.
+	 *
+	 * @param reader the reader of the file; can not be null.
+	 * @param deferCoordinates put off the 2D layout of each structure; see {@link #parseInchi(String, boolean)}.
+	 * @return a Stream of the parsed structures in file order.
+	 * @throws UncheckedIOException (when consumed) if a line can't be read or an InChI can't be parsed;
+	 * the message has the line number.
+	 */
+	public Stream<Chemical> parseInchis(BufferedReader reader, boolean deferCoordinates) {
+		Objects.requireNonNull(reader);
+		AtomicLong lineNumber = new AtomicLong();
+		return reader.lines()
+				.map(line -> {
+					lineNumber.incrementAndGet();
+					return line.trim();
+				})
+				.filter(line -> line.startsWith("InChI="))
+				.map(line -> {
+					int end = 0;
+					while(end < line.length() && !Character.isWhitespace(line.charAt(end))){
+						end++;
+					}
+					try {
+						Chemical chemical = parseInchi(line.substring(0, end), deferCoordinates);
+						String name = line.substring(end).trim();
+						if(!name.isEmpty()){
+							chemical.setName(name);
+						}
+						return chemical;
+					} catch (IOException e) {
+						throw new UncheckedIOException("line " + lineNumber.get() + ": " + e.getMessage(), e);
+					}
+				});
+	}
+
+	/**
+	 * Parse the given InChI file one line at a time; see {@link #parseInchis(BufferedReader, boolean)}.
+	 * The file is closed when the returned Stream is closed so use it in a try-with-resources block.
+	 *
+	 * @param inchiFile the file to parse; must be UTF-8 or ASCII.
+	 * @param deferCoordinates put off the 2D layout of each structure; see {@link #parseInchi(String, boolean)}.
+	 * @return a Stream of the parsed structures in file order.
+	 * @throws IOException if the file can not be opened.
+	 */
+	public Stream<Chemical> parseInchis(File inchiFile, boolean deferCoordinates) throws IOException {
+		BufferedReader reader = Files.newBufferedReader(inchiFile.toPath(), StandardCharsets.UTF_8);
+		return parseInchis(reader, deferCoordinates)
+				.onClose(() -> {
+					try {
+						reader.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
 }
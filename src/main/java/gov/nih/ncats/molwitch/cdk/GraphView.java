@@ -0,0 +1,132 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.util.Arrays;
+
+import org.openscience.cdk.graph.GraphUtil;
+import org.openscience.cdk.graph.GraphUtil.EdgeToBondMap;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+
+/**
+ * The adjacency list, edge to bond map and degrees of one version
+ * of a structure, built together in one pass by {@link GraphUtil#toAdjList(IAtomContainer, EdgeToBondMap)}.
+ *
+ * <p>
+ * Instances are cached by the {@link CdkChemicalImpl} and thrown away when
+ * atoms or bonds are added or removed.  The arrays are shared by everyone
+ * using this view so they must not be modified.
+ * </p>
+ */
+final class GraphView {
+
+	private final int[][] adjacencyList;
+	private final int[][] sortedAdjacencyList;
+	private final EdgeToBondMap bondMap;
+	private final int[] degrees;
+
+	private GraphView(int[][] adjacencyList, EdgeToBondMap bondMap) {
+		this.adjacencyList = adjacencyList;
+		this.bondMap = bondMap;
+		this.degrees = new int[adjacencyList.length];
+		this.sortedAdjacencyList = new int[adjacencyList.length][];
+		for(int i=0; i< degrees.length; i++){
+			int[] row = adjacencyList[i];
+			degrees[i] = row.length;
+			//rows are usually already in order so only copy the ones that aren't
+			if(!isSorted(row)){
+				row = row.clone();
+				Arrays.sort(row);
+			}
+			sortedAdjacencyList[i] = row;
+		}
+	}
+
+	private static boolean isSorted(int[] row){
+		for(int i=1; i< row.length; i++){
+			if(row[i-1] > row[i]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Build the view of the given container.
+	 * @param container the container; should not change while this view is used.
+	 * @return a new GraphView; will not be null.
+	 */
+	static GraphView of(IAtomContainer container){
+		EdgeToBondMap bondMap = EdgeToBondMap.withSpaceFor(container);
+		return new GraphView(GraphUtil.toAdjList(container, bondMap), bondMap);
+	}
+
+	/**
+	 * The adjacency list: the indexes of the atoms bonded to each atom.
+	 * @return the shared adjacency list; do not modify.
+	 */
+	int[][] getAdjacencyList(){
+		return adjacencyList;
+	}
+
+	/**
+	 * The adjacency list with each row in ascending order.
+	 * @return the shared sorted adjacency list; rows may be the same arrays
+	 * as {@link #getAdjacencyList()}, do not modify.
+	 */
+	int[][] getSortedAdjacencyList(){
+		return sortedAdjacencyList;
+	}
+
+	/**
+	 * The map from pairs of atom indexes to the bond between them.
+	 * @return the shared EdgeToBondMap.
+	 */
+	EdgeToBondMap getBondMap(){
+		return bondMap;
+	}
+
+	/**
+	 * The bond between the 2 atoms.
+	 * @param i the index of one atom.
+	 * @param j the index of the other atom.
+	 * @return the bond; or {@code null} if they aren't bonded.
+	 */
+	IBond getBond(int i, int j){
+		return bondMap.get(i, j);
+	}
+
+	/**
+	 * The number of atoms bonded to the given atom.
+	 * @param i the index of the atom.
+	 * @return the degree.
+	 */
+	int getDegree(int i){
+		return degrees[i];
+	}
+
+	int getAtomCount(){
+		return adjacencyList.length;
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.vecmath.Point2d;
+import javax.vecmath.Point3d;
+
+import org.openscience.cdk.AtomRef;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObject;
+import org.openscience.cdk.interfaces.IPseudoAtom;
+import org.openscience.cdk.interfaces.IStereoElement;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+
+import gov.nih.ncats.molwitch.inchi.InChiResult;
+
+/**
+ * A bounded, thread safe, least recently used cache of computed {@link InChiResult}s.
+ *
+ * <p>
+ * The key of a structure is made from everything the InChI generator is given:
+ * the element, isotope, charge, implicit hydrogens, radicals, aromaticity and coordinates of each atom,
+ * the order, aromaticity and wedge of each bond and the stereo elements.  So a structure
+ * that is changed gets a different key and there is nothing to invalidate.
+ * The key is in input atom order and not canonical because the AuxInfo of a result
+ * has the input atom numbers and coordinates, so 2 different atom orders of the same
+ * structure can't share a result.  Reading the same structure again (the common case when
+ * the same records are registered or compared over and over) does hit the cache.
+ * The key is the full description, not a hash of it, so 2 structures can never collide.
+ * </p>
+ */
+public final class InchiResultCache {
+
+	private final int maxSize;
+	private final Map<String, InChiResult> map;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Create a new cache.
+	 *
+	 * @param maxSize the max number of results to keep; must be greater than 0.
+	 * @throws IllegalArgumentException if maxSize is less than 1.
+	 */
+	public InchiResultCache(int maxSize) {
+		if(maxSize < 1){
+			throw new IllegalArgumentException("max size must be > 0");
+		}
+		this.maxSize = maxSize;
+		this.map = new LinkedHashMap<String, InChiResult>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, InChiResult> eldest) {
+				if(size() > InchiResultCache.this.maxSize){
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Make the cache key for the given structure.
+	 * @param container the structure.
+	 * @return the key.
+	 */
+	static String keyFor(IAtomContainer container){
+		StringBuilder key = new StringBuilder(container.getAtomCount() * 48);
+		for(IAtom atom : container.atoms()){
+			IAtom a = AtomRef.deref(atom);
+			if(a instanceof IPseudoAtom || a instanceof IQueryAtom){
+				//these are all made into the same place holder atom before computing
+				key.append('*');
+			}else{
+				key.append(a.getSymbol());
+			}
+			key.append(',').append(a.getMassNumber())
+				.append(',').append(a.getFormalCharge())
+				.append(',').append(a.getImplicitHydrogenCount())
+				.append(',').append(container.getConnectedSingleElectronsCount(atom))
+				.append(',').append(a.isAromatic() ? 'a' : '-');
+			Point3d p3 = a.getPoint3d();
+			if(p3 !=null){
+				key.append(',').append(p3.x).append(',').append(p3.y).append(',').append(p3.z);
+			}
+			Point2d p2 = a.getPoint2d();
+			if(p2 !=null){
+				key.append(',').append(p2.x).append(',').append(p2.y);
+			}
+			key.append(';');
+		}
+		key.append('|');
+		for(IBond bond : container.bonds()){
+			key.append(container.indexOf(bond.getBegin()))
+				.append(',').append(container.indexOf(bond.getEnd()))
+				.append(',').append(bond.getOrder())
+				.append(',').append(bond.isAromatic() ? 'a' : '-')
+				.append(',').append(bond.getDisplay())
+				.append(';');
+		}
+		key.append('|');
+		for(IStereoElement<?, ?> se : container.stereoElements()){
+			key.append(se.getConfigClass()).append(',').append(se.getConfig())
+				.append(',');
+			appendIndex(key, container, se.getFocus());
+			for(IChemObject carrier : se.getCarriers()){
+				key.append(',');
+				appendIndex(key, container, carrier);
+			}
+			key.append(';');
+		}
+		return key.toString();
+	}
+
+	private static void appendIndex(StringBuilder key, IAtomContainer container, IChemObject obj){
+		if(obj instanceof IAtom){
+			key.append('a').append(container.indexOf((IAtom) obj));
+		}else if(obj instanceof IBond){
+			key.append('b').append(container.indexOf((IBond) obj));
+		}else{
+			key.append('?');
+		}
+	}
+
+	/**
+	 * Get the cached result for the given key.
+	 * @param key the key from {@link #keyFor(IAtomContainer)}.
+	 * @return the result or {@code null} if it isn't cached.
+	 */
+	InChiResult get(String key){
+		synchronized (map){
+			InChiResult result = map.get(key);
+			if(result ==null){
+				misses++;
+			}else{
+				hits++;
+			}
+			return result;
+		}
+	}
+
+	void put(String key, InChiResult result){
+		synchronized (map){
+			map.put(key, result);
+		}
+	}
+
+	/**
+	 * The max number of results this cache holds.
+	 * @return the max size.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * The number of results currently cached.
+	 * @return the size.
+	 */
+	public int size(){
+		synchronized (map){
+			return map.size();
+		}
+	}
+
+	/**
+	 * The number of lookups that found a computed result.
+	 * @return the hit count.
+	 */
+	public long getHitCount(){
+		synchronized (map){
+			return hits;
+		}
+	}
+
+	/**
+	 * The number of lookups that had to compute the InChI.
+	 * @return the miss count.
+	 */
+	public long getMissCount(){
+		synchronized (map){
+			return misses;
+		}
+	}
+
+	/**
+	 * The number of results removed to keep the cache under its max size.
+	 * @return the eviction count.
+	 */
+	public long getEvictionCount(){
+		synchronized (map){
+			return evictions;
+		}
+	}
+
+	/**
+	 * The fraction of lookups that were hits.
+	 * @return a number between 0 and 1; 0 if there haven't been any lookups.
+	 */
+	public double getHitRate(){
+		synchronized (map){
+			long total = hits + misses;
+			return total ==0 ? 0D : hits / (double) total;
+		}
+	}
+
+	/**
+	 * Remove all the cached results and reset the counts.
+	 */
+	public void clear(){
+		synchronized (map){
+			map.clear();
+			hits = 0;
+			misses = 0;
+			evictions = 0;
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized (map){
+			return "InchiResultCache{size=" + map.size() + ", maxSize=" + maxSize
+					+ ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+		}
+	}
+}
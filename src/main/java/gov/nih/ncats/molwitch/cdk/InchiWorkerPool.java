@@ -0,0 +1,386 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.inchi.InChiResult;
+import gov.nih.ncats.molwitch.inchi.InChiResult.Status;
+
+/**
+ * A fixed size pool of worker threads that compute standard InChIs in batches.
+ *
+ * <p>
+ * At most {@code threads} InChIs are computed at once and at most {@code queueCapacity}
+ * more wait for a worker, so a big batch (or many batches from different threads) can't swamp
+ * the native library; callers wait for room in the queue instead.
+ * Each structure in a batch gets its own result: a structure that fails or
+ * takes longer than the timeout gets an {@link Status#ERROR} result with the reason in the message
+ * and the rest of the batch is not affected.  Native InChI calls can not be interrupted
+ * so a timed out computation keeps its worker busy, and still counts against the limits above,
+ * until it finishes; the timeout only stops the caller from waiting for it.
+ * </p>
+ *
+ * <p>
+ * The queue depth, success, failure and timeout counts and the queue wait
+ * and computation times are kept so they can be reported.
+ * </p>
+ */
+public final class InchiWorkerPool implements Closeable {
+
+	private static final Logger logger = Logger.getLogger("InchiWorkerPool");
+
+	private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+	private final CdkChemicalInchiImplFactory factory;
+	private final ThreadPoolExecutor executor;
+	private final Semaphore permits;
+
+	private final LongAdder succeeded = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	private final LongAdder computed = new LongAdder();
+	private final LongAdder computeNanos = new LongAdder();
+	private final LongAdder queueNanos = new LongAdder();
+	private final AtomicLong maxComputeNanos = new AtomicLong();
+
+	/**
+	 * Create a new pool.
+	 *
+	 * @param factory the factory to compute the InChIs with; can not be null.
+	 * @param threads the number of worker threads; must be greater than 0.
+	 * @param queueCapacity the max number of structures waiting for a worker; must not be negative.
+	 * @throws IllegalArgumentException if threads is less than 1 or queueCapacity is negative.
+	 */
+	public InchiWorkerPool(CdkChemicalInchiImplFactory factory, int threads, int queueCapacity) {
+		if(threads < 1){
+			throw new IllegalArgumentException("threads must be > 0");
+		}
+		if(queueCapacity < 0){
+			throw new IllegalArgumentException("queue capacity can not be negative");
+		}
+		this.factory = Objects.requireNonNull(factory);
+		this.permits = new Semaphore(threads + queueCapacity);
+		int poolNumber = POOL_COUNT.incrementAndGet();
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = r -> {
+			Thread t = new Thread(r, "molwitch-inchi-" + poolNumber + "-" + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+		//the permits keep the number of tasks bounded so the queue itself doesn't have to be
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadFactory);
+	}
+
+	/**
+	 * Compute the standard InChI of each of the given structures.
+	 * The same Chemical object in the list more than once is only computed once.
+	 *
+	 * @param chemicals the structures; can not be null or contain nulls.
+	 * @param timeout the max time to wait for each structure, both for a worker
+	 *                to be free and for the worker to compute it.
+	 * @param unit the unit of the timeout.
+	 * @return a List the same size and order as chemicals with the result for each;
+	 * failures and timeouts are {@link Status#ERROR} results.
+	 * @throws RejectedExecutionException if this pool has been closed.
+	 */
+	public List<InChiResult> asStdInchi(List<Chemical> chemicals, long timeout, TimeUnit unit) {
+		long timeoutNanos = unit.toNanos(timeout);
+		List<InChiResult> results = new ArrayList<>(chemicals.size());
+		Map<Chemical, Task> submitted = new IdentityHashMap<>();
+		List<Task> tasks = new ArrayList<>(chemicals.size());
+		for(Chemical c : chemicals){
+			Objects.requireNonNull(c);
+			tasks.add(submitted.computeIfAbsent(c, k -> new Task(k)));
+		}
+		//submit as many as there is room for but only wait for room when
+		//the next structure to collect hasn't been submitted yet
+		int nextToSubmit = 0;
+		for(int i=0; i< tasks.size(); i++){
+			while(nextToSubmit < tasks.size() && trySubmit(tasks.get(nextToSubmit), 0)){
+				nextToSubmit++;
+			}
+			Task task = tasks.get(i);
+			if(nextToSubmit == i){
+				if(!trySubmit(task, timeoutNanos)){
+					task.cancel(false);
+				}
+				nextToSubmit++;
+			}
+			results.add(collect(task, timeoutNanos));
+		}
+		return results;
+	}
+
+	/**
+	 * Submit the given task if there is room for it within the timeout.
+	 * @return {@code true} if it was submitted (now or earlier); {@code false} if there wasn't room.
+	 */
+	private boolean trySubmit(Task task, long timeoutNanos){
+		if(task.submitted || task.isDone()){
+			//same Chemical earlier in this batch
+			return true;
+		}
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if(!acquired){
+			return false;
+		}
+		task.hasPermit.set(true);
+		task.submitted = true;
+		task.queuedAt = System.nanoTime();
+		try{
+			executor.execute(task);
+		}catch(RejectedExecutionException e){
+			task.releasePermit();
+			task.cancel(false);
+			throw e;
+		}
+		return true;
+	}
+
+	private InChiResult collect(Task task, long timeoutNanos){
+		if(task.result ==null){
+			task.result = await(task, timeoutNanos);
+		}
+		return task.result;
+	}
+
+	private InChiResult await(Task task, long timeoutNanos){
+		try{
+			try{
+				return task.get(timeoutNanos, TimeUnit.NANOSECONDS);
+			}catch(TimeoutException e){
+				//if it only started part way through the wait give it the full time from its start
+				long started = task.startedAt;
+				if(started !=0){
+					long remaining = started + timeoutNanos - System.nanoTime();
+					if(remaining > 0){
+						return task.get(remaining, TimeUnit.NANOSECONDS);
+					}
+				}
+				throw e;
+			}
+		}catch(TimeoutException e){
+			task.cancel(true);
+			timedOut.increment();
+			return error(task.chemical, "timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+		}catch(CancellationException e){
+			//never got a worker
+			timedOut.increment();
+			return error(task.chemical, "timed out waiting for a worker");
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			task.cancel(true);
+			return error(task.chemical, "interrupted");
+		}catch(ExecutionException e){
+			Throwable cause = e.getCause();
+			return error(task.chemical, cause ==null ? e.toString() : cause.toString());
+		}
+	}
+
+	private static InChiResult error(Chemical chemical, String message){
+		logger.log(Level.FINE, () -> "could not compute InChI for " + chemical.getName() + " : " + message);
+		return new InChiResult.Builder(Status.ERROR)
+				.setAuxInfo("")
+				.setInchi("")
+				.setKey("")
+				.setMessage(message)
+				.build();
+	}
+
+	private final class Task extends FutureTask<InChiResult>{
+		private final Chemical chemical;
+		private boolean submitted;
+		private final AtomicBoolean hasPermit = new AtomicBoolean();
+		private InChiResult result;
+		private volatile long queuedAt;
+		private volatile long startedAt;
+
+		Task(Chemical chemical) {
+			super(() -> factory.computeStdInchi(chemical));
+			this.chemical = chemical;
+		}
+
+		@Override
+		public void run() {
+			//the permit is only given back once the worker is free again;
+			//a timed out native call still holds its worker until it returns
+			try{
+				if(isDone()){
+					//cancelled while in the queue
+					return;
+				}
+				long start = System.nanoTime();
+				startedAt = start;
+				queueNanos.add(start - queuedAt);
+				super.run();
+			}finally{
+				releasePermit();
+			}
+		}
+
+		private void releasePermit(){
+			if(hasPermit.compareAndSet(true, false)){
+				permits.release();
+			}
+		}
+
+		/**
+		 * Record the time taken; called before the result is set
+		 * so the counts are up to date by the time the caller sees it.
+		 */
+		private void recordComputeTime(){
+			long elapsed = System.nanoTime() - startedAt;
+			computed.increment();
+			computeNanos.add(elapsed);
+			maxComputeNanos.accumulateAndGet(elapsed, Math::max);
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			recordComputeTime();
+			if(!isDone()){
+				failed.increment();
+			}
+			super.setException(t);
+		}
+
+		@Override
+		protected void set(InChiResult v) {
+			recordComputeTime();
+			if(!isDone()){
+				//not already given up on
+				succeeded.increment();
+			}
+			super.set(v);
+		}
+	}
+
+	/**
+	 * The number of structures waiting for a worker right now.
+	 * @return the queue depth.
+	 */
+	public int getQueueDepth(){
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * The number of workers computing an InChI right now.
+	 * @return the active count.
+	 */
+	public int getActiveCount(){
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * The number of structures whose InChI was computed without an exception.
+	 * Results with an error status from the InChI library itself are counted here.
+	 * @return the success count.
+	 */
+	public long getSuccessCount(){
+		return succeeded.sum();
+	}
+
+	/**
+	 * The number of structures that threw an exception while being computed.
+	 * @return the failure count.
+	 */
+	public long getFailureCount(){
+		return failed.sum();
+	}
+
+	/**
+	 * The number of structures that were given up on because they took too long,
+	 * either waiting for a worker or being computed.
+	 * @return the timeout count.
+	 */
+	public long getTimeoutCount(){
+		return timedOut.sum();
+	}
+
+	/**
+	 * The mean time a structure spent being computed.
+	 * @param unit the unit to return the time in.
+	 * @return the mean time; 0 if nothing has been computed yet.
+	 */
+	public long getMeanComputeTime(TimeUnit unit){
+		long n = computed.sum();
+		return n ==0 ? 0 : unit.convert(computeNanos.sum() / n, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * The longest time a structure spent being computed.
+	 * @param unit the unit to return the time in.
+	 * @return the max time; 0 if nothing has been computed yet.
+	 */
+	public long getMaxComputeTime(TimeUnit unit){
+		return unit.convert(maxComputeNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * The mean time a structure waited in the queue for a worker.
+	 * @param unit the unit to return the time in.
+	 * @return the mean time; 0 if nothing has been computed yet.
+	 */
+	public long getMeanQueueTime(TimeUnit unit){
+		long n = computed.sum();
+		return n ==0 ? 0 : unit.convert(queueNanos.sum() / n, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Stop the workers.  Structures still waiting are not computed;
+	 * native computations already running can not be stopped and finish on their own.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalInt;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.formats.SDFFormat;
+
+import gov.nih.ncats.molwitch.ChemicalSource;
+import gov.nih.ncats.molwitch.ChemicalSource.CommonProperties;
+import gov.nih.ncats.molwitch.internal.source.MolStringSource;
+import gov.nih.ncats.molwitch.spi.ChemicalImplReader;
+
+/**
+ * A {@link ChemicalImplReader} over an SDF file that uses a {@link SdfRecordIndex}
+ * to jump straight to a record.  Only the bytes of the records that are actually read are
+ * mapped and parsed.
+ *
+ * <p>
+ * {@link #read()} returns the record at the current position and moves to the next one,
+ * so after a {@link #seek(int)} the reader can keep reading sequentially from there.
+ * </p>
+ */
+public final class IndexedSdfReader implements ChemicalImplReader{
+
+	private final SdfRecordIndex index;
+	private final FileChannel channel;
+	private int position;
+
+	IndexedSdfReader(SdfRecordIndex index) throws IOException {
+		this.index = index;
+		this.channel = FileChannel.open(index.getSdfFile().toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * Move to the record with the given ordinal.
+	 *
+	 * @param ordinal the 0-based record number.
+	 * @throws IndexOutOfBoundsException if the ordinal is not between 0 and the number of records.
+	 */
+	public void seek(int ordinal){
+		if(ordinal < 0 || ordinal > index.size()){
+			throw new IndexOutOfBoundsException("ordinal " + ordinal + " out of range 0 - " + index.size());
+		}
+		position = ordinal;
+	}
+
+	/**
+	 * Move to the first record with the given ID.
+	 *
+	 * @param id the ID (title line) of the record.
+	 * @return {@code true} if a record with that ID exists; {@code false}
+	 * otherwise and the position is not changed.
+	 */
+	public boolean seek(String id){
+		OptionalInt ordinal = index.getOrdinalOf(id);
+		if(ordinal.isPresent()){
+			position = ordinal.getAsInt();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * The ordinal of the record the next call to {@link #read()} will return.
+	 * @return the 0-based record number; will be the number of records if there are no more to read.
+	 */
+	public int getPosition(){
+		return position;
+	}
+
+	/**
+	 * Read the record with the given ordinal and move to the record after it.
+	 *
+	 * @param ordinal the 0-based record number.
+	 * @return the parsed record.
+	 * @throws IOException if there is a problem reading or parsing the record.
+	 * @throws IndexOutOfBoundsException if the ordinal is out of range.
+	 */
+	public CdkChemicalImpl read(int ordinal) throws IOException{
+		seek(ordinal);
+		return read();
+	}
+
+	@Override
+	public CdkChemicalImpl read() throws IOException {
+		if(position >= index.size()){
+			return null;
+		}
+		String record = index.readRecord(channel, position, StandardCharsets.UTF_8);
+		position++;
+
+		ReaderFactory.GuessResult parser = ReaderFactory.create(new BufferedReader(new StringReader(record)), SDFFormat.getInstance());
+		try{
+			if(!parser.cdkReader.hasNext()){
+				throw new IOException("could not parse record " + (position-1) + " of " + index.getSdfFile().getAbsolutePath());
+			}
+			IAtomContainer container = parser.cdkReader.next();
+			String data = parser.savedBufferedReader.getBufferedLines();
+			ChemicalSource source = new MolStringSource(data,
+					data.contains("$$$$") ? ChemicalSource.Type.SDF : ChemicalSource.Type.MOL);
+			File file = index.getSdfFile();
+			source.getProperties().put(CommonProperties.Filename, file.getName());
+			source.getProperties().put(CommonProperties.Filepath, file.getAbsolutePath());
+			source.getProperties().put(CommonProperties.Filesize, Long.toString(file.length()));
+			return new CdkChemicalImpl(container, source);
+		}finally{
+			parser.cdkReader.close();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
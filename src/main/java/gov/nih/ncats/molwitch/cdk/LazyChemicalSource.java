@@ -0,0 +1,138 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import gov.nih.ncats.molwitch.ChemicalSource;
+import gov.nih.ncats.molwitch.internal.source.MolStringSource;
+
+/**
+ * A MOL/SDF {@link ChemicalSource} that doesn't make the record text
+ * until someone asks for it.  Once made it behaves exactly like
+ * a {@link MolStringSource} of the same text.
+ *
+ * <p>
+ * Properties can be put into the map returned by {@link #getProperties()}
+ * (like the file name properties the readers add) without making the text;
+ * only reading the properties does that, since the SD fields of the record
+ * are properties too.
+ * </p>
+ */
+final class LazyChemicalSource implements ChemicalSource{
+
+	private final Type type;
+	private Supplier<String> dataSupplier;
+	private volatile MolStringSource delegate;
+
+	private final Map<String, String> addedProperties = new LinkedHashMap<>();
+	private final Map<String, String> properties = new PropertyMap();
+
+	LazyChemicalSource(Type type, Supplier<String> dataSupplier) {
+		this.type = Objects.requireNonNull(type);
+		this.dataSupplier = Objects.requireNonNull(dataSupplier);
+	}
+
+	private MolStringSource delegate(){
+		MolStringSource d = delegate;
+		if(d ==null){
+			synchronized (this){
+				d = delegate;
+				if(d ==null){
+					d = new MolStringSource(dataSupplier.get(), type);
+					d.getProperties().putAll(addedProperties);
+					delegate = d;
+					//let the supplier (and whatever buffer it holds) get GC'ed
+					dataSupplier = null;
+				}
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Has the text been made yet.
+	 * @return {@code true} if {@link #getData()} or reading the properties has happened.
+	 */
+	boolean isMaterialized(){
+		return delegate !=null;
+	}
+
+	@Override
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public String getData() {
+		return delegate().getData();
+	}
+
+	@Override
+	public Map<String, String> getProperties() {
+		return properties;
+	}
+
+	@Override
+	public int hashCode() {
+		return delegate().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj){
+			return true;
+		}
+		if(obj instanceof LazyChemicalSource){
+			return delegate().equals(((LazyChemicalSource) obj).delegate());
+		}
+		return delegate().equals(obj);
+	}
+
+	@Override
+	public String toString() {
+		return delegate().toString();
+	}
+
+	private final class PropertyMap extends AbstractMap<String, String>{
+
+		@Override
+		public String put(String key, String value) {
+			synchronized (LazyChemicalSource.this){
+				if(delegate ==null){
+					return addedProperties.put(key, value);
+				}
+			}
+			return delegate.getProperties().put(key, value);
+		}
+
+		@Override
+		public Set<Entry<String, String>> entrySet() {
+			return delegate().getProperties().entrySet();
+		}
+	}
+}
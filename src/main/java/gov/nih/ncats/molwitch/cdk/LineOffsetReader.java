@@ -0,0 +1,193 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * A {@link Reader} over the bytes of a file that keeps the byte offset where
+ * each line starts, so a line read by the {@link BufferedReader}s on top of it
+ * can be found in the file again without scanning the file a second time.
+ *
+ * <p>
+ * Lines end at {@code \n}, {@code \r\n} or a lone {@code \r}, the same as
+ * {@link BufferedReader#readLine()}, so line n here is the n-th line a BufferedReader
+ * reading from this returns.  The charset must be ASCII compatible, like UTF-8,
+ * so a line break byte is always a line break.  Only the offsets from the line
+ * passed to {@link #discardBefore(long)} on are kept.
+ * </p>
+ */
+final class LineOffsetReader extends Reader{
+
+	private final InputStream in;
+	private final CharsetDecoder decoder;
+
+	private final byte[] buffer = new byte[1 << 16];
+	private int bufferPosition;
+	private int bufferLength;
+
+	private byte[] line = new byte[256];
+	private CharBuffer chars = CharBuffer.allocate(256).flip();
+	private long position;
+
+	/**
+	 * offsets[i] is the byte offset where line firstLine + i starts;
+	 * the last one is where the next line would start.
+	 */
+	private long[] offsets = new long[64];
+	private int count = 1;
+	private long firstLine;
+
+	LineOffsetReader(InputStream in, Charset charset) {
+		this.in = in;
+		this.decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * Get the byte offset where the given line starts.
+	 *
+	 * @param lineNumber the 0-based line number; asking for the line after the last line
+	 *                   that has been read gives the offset where that line ends.
+	 * @return the offset.
+	 * @throws IllegalStateException if the offset hasn't been read yet or has been discarded.
+	 */
+	long getLineStart(long lineNumber){
+		long i = lineNumber - firstLine;
+		if(i < 0 || i >= count){
+			throw new IllegalStateException("offset of line " + lineNumber + " is not known");
+		}
+		return offsets[(int) i];
+	}
+
+	/**
+	 * Stop keeping the offsets of the lines before the given line.
+	 *
+	 * @param lineNumber the 0-based number of the first line to keep.
+	 */
+	void discardBefore(long lineNumber){
+		int n = (int) Math.min(lineNumber - firstLine, count -1);
+		if(n <= 0){
+			return;
+		}
+		System.arraycopy(offsets, n, offsets, 0, count - n);
+		count -= n;
+		firstLine += n;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if(len ==0){
+			return 0;
+		}
+		while(!chars.hasRemaining()){
+			if(!readNextLine()){
+				return -1;
+			}
+		}
+		int n = Math.min(len, chars.remaining());
+		chars.get(cbuf, off, n);
+		return n;
+	}
+
+	/**
+	 * Read the bytes of the next line, including its line terminator, and decode them.
+	 * @return {@code false} if there are no more bytes.
+	 */
+	private boolean readNextLine() throws IOException{
+		int length = 0;
+		int b;
+		while((b = nextByte()) >= 0){
+			if(length == line.length){
+				line = Arrays.copyOf(line, length *2);
+			}
+			line[length++] = (byte) b;
+			if(b == '\n'){
+				break;
+			}
+			if(b == '\r'){
+				if(peekByte() == '\n'){
+					continue;
+				}
+				break;
+			}
+		}
+		if(length ==0){
+			return false;
+		}
+		position += length;
+		if(count == offsets.length){
+			offsets = Arrays.copyOf(offsets, count *2);
+		}
+		offsets[count++] = position;
+
+		int maxChars = (int) Math.ceil(length * (double) decoder.maxCharsPerByte());
+		if(chars.capacity() < maxChars){
+			chars = CharBuffer.allocate(maxChars);
+		}
+		chars.clear();
+		decoder.reset();
+		decoder.decode(ByteBuffer.wrap(line, 0, length), chars, true);
+		decoder.flush(chars);
+		chars.flip();
+		return true;
+	}
+
+	private int nextByte() throws IOException{
+		if(bufferPosition == bufferLength && !fill()){
+			return -1;
+		}
+		return buffer[bufferPosition++] & 0xFF;
+	}
+
+	private int peekByte() throws IOException{
+		if(bufferPosition == bufferLength && !fill()){
+			return -1;
+		}
+		return buffer[bufferPosition] & 0xFF;
+	}
+
+	private boolean fill() throws IOException{
+		int n = in.read(buffer);
+		if(n <= 0){
+			return false;
+		}
+		bufferPosition = 0;
+		bufferLength = n;
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.ref.Cleaner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import gov.nih.ncats.molwitch.ChemicalSource;
+import gov.nih.ncats.molwitch.internal.source.MolStringSource;
+import gov.nih.ncats.molwitch.spi.ChemicalImplReader;
+
+/**
+ * A {@link ChemicalImplReader} for MOL/SDF input that parses
+ * records on a pool of worker threads.
+ *
+ * <p>
+ * One background thread splits the input on the {@code $$$$} record delimiter
+ * and hands each record to the worker pool to be parsed into a {@link CdkChemicalImpl}.
+ * The futures are queued in input order so {@link #read()} returns the records
+ * in the same order as the single threaded reader would.  The queue is bounded
+ * so a slow consumer doesn't cause the whole file to be read into memory.
+ * </p>
+ * <p>
+ * The input must already be wrapped by a {@link ProgramClearingMol2000Wrapper}
+ * so the record text, and therefore the {@link ChemicalSource}, is the same as
+ * the one the single threaded reader makes.
+ * </p>
+ * <p>
+ * The splitter and worker threads are daemons.  The worker pool is shut down and
+ * the input closed as soon as the splitter has read all of the input, and the splitter
+ * also stops when {@link #read()} returns null or the reader is closed.
+ * A reader that is dropped part way through without being closed is stopped
+ * when it is garbage collected, but that may be much later, so it is still best
+ * to use it in a try-with-resources block.
+ * </p>
+ */
+final class ParallelSdfReader implements ChemicalImplReader{
+
+	private static final Logger logger = Logger.getLogger("ParallelSdfReader");
+
+	private static final String NEW_LINE = System.lineSeparator();
+	private static final AtomicInteger READER_COUNTER = new AtomicInteger();
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	private static final Future<CdkChemicalImpl> END_OF_INPUT = CompletableFuture.completedFuture(null);
+
+	private final BufferedReader in;
+	private final Consumer<ChemicalSource> sourceConsumer;
+	private final BlockingQueue<Future<CdkChemicalImpl>> parsed;
+	private final Cleaner.Cleanable splitterCleanup;
+
+	private boolean done;
+
+	ParallelSdfReader(BufferedReader in, int numberOfThreads, Consumer<ChemicalSource> sourceConsumer) {
+		if(numberOfThreads < 1){
+			throw new IllegalArgumentException("number of threads must be >= 1");
+		}
+		this.in = in;
+		this.sourceConsumer = sourceConsumer;
+		int id = READER_COUNTER.incrementAndGet();
+		AtomicInteger workerCounter = new AtomicInteger();
+		ExecutorService workers = Executors.newFixedThreadPool(numberOfThreads, r->{
+			Thread t = new Thread(r, "sdf-reader-" + id + "-worker-" + workerCounter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		this.parsed = new ArrayBlockingQueue<>(numberOfThreads * 16);
+		//the splitter must not refer back to this reader
+		//or an abandoned reader would never be cleaned up
+		Splitter splitter = new Splitter(in, workers, parsed);
+		Thread thread = new Thread(splitter, "sdf-reader-" + id + "-splitter");
+		thread.setDaemon(true);
+		splitter.thread = thread;
+		this.splitterCleanup = CLEANER.register(this, splitter::stop);
+		thread.start();
+	}
+
+	/**
+	 * Splits the input into records and hands them to the workers
+	 * until it runs out of input or is stopped.
+	 */
+	private static final class Splitter implements Runnable{
+		private final BufferedReader in;
+		private final ExecutorService workers;
+		private final BlockingQueue<Future<CdkChemicalImpl>> parsed;
+		private volatile Thread thread;
+		private volatile boolean stopped;
+
+		Splitter(BufferedReader in, ExecutorService workers, BlockingQueue<Future<CdkChemicalImpl>> parsed) {
+			this.in = in;
+			this.workers = workers;
+			this.parsed = parsed;
+		}
+
+		@Override
+		public void run(){
+			try{
+				StringBuilder record = new StringBuilder(2048);
+				ChemicalSource.Type type = null;
+				String line;
+				while(!stopped && (line = in.readLine()) !=null){
+					record.append(line).append(NEW_LINE);
+					if(line.startsWith("$$$$")){
+						if(type ==null){
+							type = ChemicalSource.Type.SDF;
+						}
+						submit(record.toString(), type);
+						record.setLength(0);
+					}
+				}
+				//the last record in a file doesn't have to end with $$$$
+				//and a single mol file never does
+				if(!stopped && record.toString().trim().length() > 0){
+					submit(record.toString(), type ==null ? ChemicalSource.Type.MOL : type);
+				}
+				//nothing else will be submitted so let the workers finish
+				//and the input go before waiting for the consumer to catch up
+				workers.shutdown();
+				closeInput();
+				parsed.put(END_OF_INPUT);
+			}catch(InterruptedException e){
+				//stopped while waiting for the consumer
+				Thread.currentThread().interrupt();
+			}catch(Throwable t){
+				CompletableFuture<CdkChemicalImpl> failed = new CompletableFuture<>();
+				failed.completeExceptionally(t);
+				try {
+					parsed.put(failed);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}finally{
+				workers.shutdown();
+				closeInput();
+			}
+		}
+
+		private void closeInput(){
+			try {
+				in.close();
+			} catch (IOException e) {
+				logger.warning("problem closing input: " + e.getMessage());
+			}
+		}
+
+		private void submit(String record, ChemicalSource.Type type) throws InterruptedException{
+			parsed.put(workers.submit(() -> parse(record, type)));
+		}
+
+		/**
+		 * Stop splitting and parsing; called at most once, either when the reader
+		 * is done with or when it is garbage collected.
+		 */
+		void stop(){
+			stopped = true;
+			Thread t = thread;
+			if(t !=null){
+				t.interrupt();
+			}
+			workers.shutdownNow();
+		}
+	}
+
+	private static CdkChemicalImpl parse(String record, ChemicalSource.Type type) throws IOException{
+		try(IdAwareSdfReader reader = new IdAwareSdfReader(new BufferedReader(new StringReader(record)),
+				SilentChemObjectBuilder.getInstance())){
+			if(!reader.hasNext()){
+				//trailing junk after the last record
+				return null;
+			}
+			IAtomContainer container = reader.next();
+			return new CdkChemicalImpl(container, new MolStringSource(record, type));
+		}
+	}
+
+	@Override
+	public CdkChemicalImpl read() throws IOException {
+		while(!done){
+			Future<CdkChemicalImpl> next;
+			try {
+				next = parsed.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted waiting for next record", e);
+			}
+			if(next == END_OF_INPUT){
+				done = true;
+				splitterCleanup.clean();
+				return null;
+			}
+			CdkChemicalImpl impl;
+			try {
+				impl = next.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted waiting for next record", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				logger.severe("problem parsing record: " + cause.getMessage());
+				if(cause instanceof IOException){
+					throw (IOException) cause;
+				}
+				if(cause instanceof RuntimeException){
+					throw (RuntimeException) cause;
+				}
+				if(cause instanceof Error){
+					throw (Error) cause;
+				}
+				throw new IOException(cause.getMessage(), cause);
+			}
+			if(impl ==null){
+				continue;
+			}
+			if(sourceConsumer !=null) {
+				ChemicalSource source = impl.getSource();
+				if(source !=null) {
+					sourceConsumer.accept(source);
+				}
+			}
+			return impl;
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		splitterCleanup.clean();
+		in.close();
+	}
+}
@@ -40,6 +40,16 @@ public class ProgramClearingMol2000Wrapper extends BufferedReader{
 	public ProgramClearingMol2000Wrapper(Reader reader) throws IOException{
 		super(reader);
 	}
+	/**
+	 * Start part way through the input, where a wrapper over the
+	 * whole input would have got to at this point.
+	 * @param reader the rest of the input.
+	 * @param currentLineInMol the line count of the wrapper that read the input up to here.
+	 */
+	ProgramClearingMol2000Wrapper(Reader reader, int currentLineInMol) throws IOException{
+		super(reader);
+		this.currentLineInMol = currentLineInMol;
+	}
 	
 	
 
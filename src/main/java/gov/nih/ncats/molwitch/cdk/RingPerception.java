@@ -0,0 +1,196 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk;
+
+import org.openscience.cdk.graph.Cycles;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IRingSet;
+
+/**
+ * The ring information of one version of a structure.
+ *
+ * <p>
+ * Ring membership and the {@link RingSystems} come from one linear time
+ * pass over the adjacency list, so unlike the AllRingsFinder they can't blow up
+ * or time out on large polycyclic cages.  The SSSR and the smallest ring
+ * of each atom and bond are only computed the first time someone asks for them.
+ * </p>
+ *
+ * <p>
+ * Instances are cached by the {@link CdkChemicalImpl} and thrown away when
+ * the structure changes, so the atom and bond indexes don't go stale.
+ * </p>
+ */
+final class RingPerception {
+
+	private final IAtomContainer container;
+	private final RingSystems ringSystems;
+
+	private Cycles sssr;
+	private int[] smallestAtomRings;
+	private int[] smallestBondRings;
+
+	private RingPerception(IAtomContainer container, RingSystems ringSystems) {
+		this.container = container;
+		this.ringSystems = ringSystems;
+	}
+
+	/**
+	 * Find the rings in the given container.
+	 * @param container the container; should not change while this instance is used.
+	 * @param graphView the graph of the container.
+	 * @return a new RingPerception; will not be null.
+	 */
+	static RingPerception of(IAtomContainer container, GraphView graphView){
+		return new RingPerception(container, RingSystems.of(graphView.getAdjacencyList()));
+	}
+
+	RingSystems getRingSystems(){
+		return ringSystems;
+	}
+
+	/**
+	 * Set the isInRing flags of every atom and bond in the container;
+	 * atoms and bonds not in a ring are cleared.
+	 */
+	void applyRingFlags(){
+		int n = container.getAtomCount();
+		for(int i=0; i< n; i++){
+			container.getAtom(i).setIsInRing(ringSystems.isInRing(i));
+		}
+		for(IBond bond : container.bonds()){
+			bond.setIsInRing(isInRing(bond));
+		}
+	}
+
+	boolean isInRing(IAtom atom){
+		int i = container.indexOf(atom);
+		return i >=0 && ringSystems.isInRing(i);
+	}
+
+	boolean isInRing(IBond bond){
+		int i = container.indexOf(bond.getBegin());
+		int j = container.indexOf(bond.getEnd());
+		return i >=0 && j >=0 && ringSystems.isInRing(i, j);
+	}
+
+	/**
+	 * The smallest set of smallest rings.  The rings are only found
+	 * the first time they are needed but each call makes a new IRingSet of them.
+	 * @return the SSSR; will be empty if there are no rings.
+	 */
+	IRingSet getSssr(){
+		return getSssrCycles().toRingSet();
+	}
+
+	private synchronized Cycles getSssrCycles(){
+		if(sssr ==null){
+			sssr = Cycles.sssr(container);
+		}
+		return sssr;
+	}
+
+	/**
+	 * The size of the smallest ring in the SSSR that contains the given atom.
+	 * @param atom the atom.
+	 * @return the ring size; 0 if the atom isn't in a ring.
+	 */
+	int getSmallestRingSize(IAtom atom){
+		int i = container.indexOf(atom);
+		if(i < 0 || !ringSystems.isInRing(i)){
+			return 0;
+		}
+		return getSmallestAtomRings()[i];
+	}
+
+	/**
+	 * The size of the smallest ring in the SSSR that contains the given bond.
+	 * @param bond the bond.
+	 * @return the ring size; 0 if the bond isn't in a ring.
+	 */
+	int getSmallestRingSize(IBond bond){
+		if(!isInRing(bond)){
+			return 0;
+		}
+		return getSmallestBondRings()[container.indexOf(bond)];
+	}
+
+	/**
+	 * The size of the smallest ring in the SSSR.
+	 * @return the ring size; 0 if there are no rings.
+	 */
+	int getSmallestRingSize(){
+		if(ringSystems.size() ==0){
+			return 0;
+		}
+		int min = 0;
+		for(int[] path : getSssrCycles().paths()){
+			//paths are closed, the first atom is repeated at the end
+			int size = path.length -1;
+			if(min ==0 || size < min){
+				min = size;
+			}
+		}
+		return min;
+	}
+
+	private synchronized int[] getSmallestAtomRings(){
+		if(smallestAtomRings ==null){
+			computeSmallestRings();
+		}
+		return smallestAtomRings;
+	}
+
+	private synchronized int[] getSmallestBondRings(){
+		if(smallestBondRings ==null){
+			computeSmallestRings();
+		}
+		return smallestBondRings;
+	}
+
+	private void computeSmallestRings(){
+		int[] atomRings = new int[container.getAtomCount()];
+		int[] bondRings = new int[container.getBondCount()];
+		for(int[] path : getSssrCycles().paths()){
+			//paths are closed, the first atom is repeated at the end
+			int size = path.length -1;
+			for(int i=0; i< size; i++){
+				setIfSmaller(atomRings, path[i], size);
+				IBond bond = container.getBond(container.getAtom(path[i]), container.getAtom(path[i+1]));
+				if(bond !=null){
+					setIfSmaller(bondRings, container.indexOf(bond), size);
+				}
+			}
+		}
+		smallestAtomRings = atomRings;
+		smallestBondRings = bondRings;
+	}
+
+	private static void setIfSmaller(int[] sizes, int index, int size){
+		if(index >=0 && (sizes[index] ==0 || size < sizes[index])){
+			sizes[index] = size;
+		}
+	}
+}
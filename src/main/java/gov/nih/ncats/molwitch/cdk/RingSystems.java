@@ -0,0 +1,200 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.util.Arrays;
+
+/**
+ * The ring systems of a molecular graph found in linear time
+ * without any copying or ring enumeration.
+ *
+ * <p>
+ * A depth first search over the adjacency list finds the bridges (the acyclic bonds)
+ * from the low-link values of the atoms, the same way biconnected components are found.
+ * The atoms joined by the remaining bonds make up the ring systems, so rings
+ * sharing a single spiro atom are in the same system.  The circuit rank of a
+ * ring system ({@code bonds - atoms + 1}) is the number of independent rings in it.
+ * </p>
+ */
+final class RingSystems {
+
+	private final int[] circuitRanks;
+	private final int[] atomSystems;
+
+	private RingSystems(int[] circuitRanks, int[] atomSystems) {
+		this.circuitRanks = circuitRanks;
+		this.atomSystems = atomSystems;
+	}
+
+	/**
+	 * Find the ring systems of the given graph.
+	 *
+	 * @param graph an adjacency list like the one made by {@link org.openscience.cdk.graph.GraphUtil#toAdjList(org.openscience.cdk.interfaces.IAtomContainer)}.
+	 * @return a new RingSystems; will not be null.
+	 */
+	static RingSystems of(int[][] graph){
+		int n = graph.length;
+		int[] order = new int[n];
+		int[] low = new int[n];
+		int[] parent = new int[n];
+		int[] nextNeighbor = new int[n];
+		int[] stack = new int[n];
+		int[] ringBonds = new int[n];
+		int[] system = new int[n];
+		for(int i=0; i< n; i++){
+			system[i] = i;
+		}
+		int time = 0;
+		for(int start =0; start< n; start++){
+			if(order[start] !=0){
+				continue;
+			}
+			//iterative so large structures don't overflow the stack
+			int size =0;
+			stack[size++] = start;
+			order[start] = low[start] = ++time;
+			parent[start] = -1;
+			while(size > 0){
+				int v = stack[size-1];
+				if(nextNeighbor[v] < graph[v].length){
+					int w = graph[v][nextNeighbor[v]++];
+					if(order[w] ==0){
+						parent[w] = v;
+						order[w] = low[w] = ++time;
+						stack[size++] = w;
+					}else if(w != parent[v] && order[w] < order[v]){
+						//back edge to an ancestor, always in a ring
+						low[v] = Math.min(low[v], order[w]);
+						ringBonds[v]++;
+					}
+					continue;
+				}
+				size--;
+				int p = parent[v];
+				if(p >=0){
+					low[p] = Math.min(low[p], low[v]);
+					if(low[v] <= order[p]){
+						//not a bridge
+						union(system, p, v);
+						ringBonds[v]++;
+					}
+				}
+			}
+		}
+		int[] bondsPerSystem = new int[n];
+		int[] atomsPerSystem = new int[n];
+		for(int i=0; i< n; i++){
+			int root = find(system, i);
+			bondsPerSystem[root] += ringBonds[i];
+			atomsPerSystem[root]++;
+		}
+		int[] ranks = new int[n];
+		//reuse the bond counts as the index of each system
+		int count =0;
+		for(int i=0; i< n; i++){
+			if(bondsPerSystem[i] > 0){
+				ranks[count] = bondsPerSystem[i] - atomsPerSystem[i] + 1;
+				bondsPerSystem[i] = count++;
+			}else{
+				bondsPerSystem[i] = -1;
+			}
+		}
+		int[] atomSystems = new int[n];
+		for(int i=0; i< n; i++){
+			atomSystems[i] = bondsPerSystem[find(system, i)];
+		}
+		return new RingSystems(Arrays.copyOf(ranks, count), atomSystems);
+	}
+
+	/**
+	 * The ring system the given atom is in.
+	 * @param atomIndex the index of the atom.
+	 * @return the index of the ring system; -1 if the atom isn't in a ring.
+	 */
+	int getRingSystemOf(int atomIndex){
+		return atomSystems[atomIndex];
+	}
+
+	/**
+	 * Is the given atom in a ring.
+	 * @param atomIndex the index of the atom.
+	 * @return {@code true} if it is in a ring.
+	 */
+	boolean isInRing(int atomIndex){
+		return atomSystems[atomIndex] >=0;
+	}
+
+	/**
+	 * Is the bond between the given atoms in a ring.  A bridge always
+	 * joins 2 different ring systems (or acyclic atoms) so a bond is in a ring
+	 * exactly when both its atoms are in the same ring system.
+	 *
+	 * @param atomIndex1 the index of one atom of the bond.
+	 * @param atomIndex2 the index of the other atom of the bond.
+	 * @return {@code true} if it is in a ring.
+	 */
+	boolean isInRing(int atomIndex1, int atomIndex2){
+		int s = atomSystems[atomIndex1];
+		return s >=0 && s == atomSystems[atomIndex2];
+	}
+
+	/**
+	 * The number of ring systems.
+	 * @return the number of ring systems; 0 if the structure is acyclic.
+	 */
+	int size(){
+		return circuitRanks.length;
+	}
+
+	/**
+	 * The circuit rank of each ring system.
+	 * @return a new array, one element per ring system.
+	 */
+	int[] getCircuitRanks(){
+		return circuitRanks.clone();
+	}
+
+	/**
+	 * The largest circuit rank of all the ring systems.
+	 * @return the largest circuit rank; 0 if there are no rings.
+	 */
+	int getLargestCircuitRank(){
+		int max =0;
+		for(int r : circuitRanks){
+			max = Math.max(max, r);
+		}
+		return max;
+	}
+
+	private static int find(int[] parent, int i){
+		while(parent[i] != i){
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static void union(int[] parent, int i, int j){
+		parent[find(parent, i)] = find(parent, j);
+	}
+}
@@ -0,0 +1,409 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.logging.Logger;
+
+/**
+ * An index of the records in an SDF file so that any record
+ * can be read by its ordinal or its ID without parsing
+ * all the records before it.
+ *
+ * <p>
+ * The index is built by memory mapping the file and scanning it for
+ * {@code $$$$} delimiter lines, keeping the byte offset where each record starts
+ * and the record's title line, which is the same ID that {@link IdAwareSdfReader}
+ * puts on each parsed record.  It can be saved to a sidecar file
+ * next to the SDF (see {@link #open(File)}) so it only has to be built once.
+ * </p>
+ *
+ * <p>
+ * Use {@link #newReader()} to get a {@link IndexedSdfReader} to actually read the records.
+ * </p>
+ */
+public final class SdfRecordIndex {
+
+	private static final Logger logger = Logger.getLogger("SdfRecordIndex");
+
+	private static final int MAGIC = 0x53444649; //"SDFI"
+	private static final int VERSION = 1;
+	/**
+	 * The file extension appended to the SDF file name to make the sidecar index file.
+	 */
+	public static final String SIDECAR_EXTENSION = ".idx";
+
+	//map the file in pieces so we can handle files larger than 2GB
+	private static final long MAP_SIZE = 1L << 28;
+
+	private final File sdfFile;
+	private final long fileLength;
+	private final long lastModified;
+	/**
+	 * start offsets of each record; has one extra element at the end
+	 * which is where the last record ends.
+	 */
+	private final long[] offsets;
+	private final String[] ids;
+	private final Map<String, Integer> ordinalsById;
+
+	private SdfRecordIndex(File sdfFile, long fileLength, long lastModified, long[] offsets, String[] ids) {
+		this.sdfFile = sdfFile;
+		this.fileLength = fileLength;
+		this.lastModified = lastModified;
+		this.offsets = offsets;
+		this.ids = ids;
+		this.ordinalsById = new HashMap<>(ids.length * 2);
+		for(int i= ids.length-1; i>=0; i--){
+			//if ids are repeated the first one wins
+			ordinalsById.put(ids[i], i);
+		}
+	}
+
+	/**
+	 * Get the index for the given SDF file, using the sidecar file
+	 * if there is one and it is still up to date, otherwise the index
+	 * is built and the sidecar file is (re)written.
+	 *
+	 * @param sdfFile the SDF file to index; can not be null.
+	 * @return a new SdfRecordIndex; will never be null.
+	 * @throws IOException if there is a problem reading the SDF file.
+	 */
+	public static SdfRecordIndex open(File sdfFile) throws IOException{
+		File sidecar = getSidecarFileFor(sdfFile);
+		if(sidecar.exists()){
+			try {
+				SdfRecordIndex index = load(sdfFile, sidecar);
+				if(index.isUpToDate()){
+					return index;
+				}
+				logger.fine("sidecar index out of date for " + sdfFile.getAbsolutePath());
+			}catch(IOException e){
+				logger.warning("could not read sidecar index " + sidecar.getAbsolutePath() + " : " + e.getMessage());
+			}
+		}
+		SdfRecordIndex index = build(sdfFile);
+		try {
+			index.save(sidecar);
+		}catch(IOException e){
+			//the index is still usable, it just has to be rebuilt next time
+			logger.warning("could not write sidecar index " + sidecar.getAbsolutePath() + " : " + e.getMessage());
+		}
+		return index;
+	}
+
+	/**
+	 * Get the sidecar file that {@link #open(File)} uses for the given SDF file.
+	 *
+	 * @param sdfFile the SDF file; can not be null.
+	 * @return the sidecar File, which may not exist yet.
+	 */
+	public static File getSidecarFileFor(File sdfFile){
+		return new File(sdfFile.getAbsolutePath() + SIDECAR_EXTENSION);
+	}
+
+	/**
+	 * Scan the given SDF file and build a new index; the sidecar file
+	 * is not used or written.
+	 *
+	 * @param sdfFile the SDF file to index; can not be null.
+	 * @return a new SdfRecordIndex; will never be null.
+	 * @throws IOException if there is a problem reading the SDF file.
+	 */
+	public static SdfRecordIndex build(File sdfFile) throws IOException{
+		long lastModified = sdfFile.lastModified();
+		Scanner scanner = new Scanner();
+		long length;
+		try(FileChannel channel = FileChannel.open(sdfFile.toPath(), StandardOpenOption.READ)){
+			length = channel.size();
+			for(long start=0; start < length; start+=MAP_SIZE){
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_SIZE, length - start));
+				scanner.scan(buffer, start);
+			}
+		}
+		scanner.finish(length);
+		return new SdfRecordIndex(sdfFile, length, lastModified,
+				Arrays.copyOf(scanner.offsets, scanner.count+1),
+				Arrays.copyOf(scanner.ids, scanner.count));
+	}
+
+	/**
+	 * Read a previously saved index.
+	 *
+	 * @param sdfFile the SDF file the index was built from.
+	 * @param sidecar the saved index file.
+	 * @return a new SdfRecordIndex; will never be null.
+	 * @throws IOException if there is a problem reading the index file or it isn't an index file.
+	 * @see #isUpToDate()
+	 */
+	public static SdfRecordIndex load(File sdfFile, File sidecar) throws IOException{
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))){
+			if(in.readInt() != MAGIC){
+				throw new IOException("not an sdf index file " + sidecar.getAbsolutePath());
+			}
+			int version = in.readInt();
+			if(version != VERSION){
+				throw new IOException("unsupported sdf index version " + version);
+			}
+			long length = in.readLong();
+			long lastModified = in.readLong();
+			int count = in.readInt();
+			long[] offsets = new long[count+1];
+			String[] ids = new String[count];
+			for(int i=0; i< count; i++){
+				offsets[i] = in.readLong();
+				ids[i] = in.readUTF();
+			}
+			offsets[count] = in.readLong();
+			return new SdfRecordIndex(sdfFile, length, lastModified, offsets, ids);
+		}
+	}
+
+	/**
+	 * Write this index to the given file.
+	 *
+	 * @param sidecar the file to write to; will be overwritten.
+	 * @throws IOException if there is a problem writing the file.
+	 */
+	public void save(File sidecar) throws IOException{
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sidecar)))){
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fileLength);
+			out.writeLong(lastModified);
+			out.writeInt(ids.length);
+			for(int i=0; i< ids.length; i++){
+				out.writeLong(offsets[i]);
+				out.writeUTF(ids[i]);
+			}
+			out.writeLong(offsets[ids.length]);
+		}
+	}
+
+	/**
+	 * Does the SDF file still have the same size and modification time
+	 * as when this index was built.
+	 *
+	 * @return {@code true} if the index can be used; {@code false} if it should be rebuilt.
+	 */
+	public boolean isUpToDate(){
+		return sdfFile.length() == fileLength && sdfFile.lastModified() == lastModified;
+	}
+
+	public File getSdfFile() {
+		return sdfFile;
+	}
+
+	/**
+	 * The number of records in the file.
+	 * @return the number of records.
+	 */
+	public int size(){
+		return ids.length;
+	}
+
+	/**
+	 * Get the ID (the title line) of the given record.
+	 *
+	 * @param ordinal the 0-based record number.
+	 * @return the ID; may be empty but never null.
+	 * @throws IndexOutOfBoundsException if the ordinal is out of range.
+	 */
+	public String getId(int ordinal){
+		return ids[Objects.checkIndex(ordinal, ids.length)];
+	}
+
+	/**
+	 * Get the ordinal of the first record with the given ID.
+	 *
+	 * @param id the ID to look for.
+	 * @return an OptionalInt of the 0-based record number, or empty if no record has that ID.
+	 */
+	public OptionalInt getOrdinalOf(String id){
+		Integer ordinal = ordinalsById.get(id);
+		return ordinal ==null ? OptionalInt.empty() : OptionalInt.of(ordinal);
+	}
+
+	/**
+	 * The byte offset in the file where the given record starts.
+	 *
+	 * @param ordinal the 0-based record number.
+	 * @return the offset.
+	 * @throws IndexOutOfBoundsException if the ordinal is out of range.
+	 */
+	public long getOffset(int ordinal){
+		return offsets[Objects.checkIndex(ordinal, ids.length)];
+	}
+
+	/**
+	 * The length in bytes of the given record, including the {@code $$$$} line.
+	 *
+	 * @param ordinal the 0-based record number.
+	 * @return the length.
+	 * @throws IndexOutOfBoundsException if the ordinal is out of range.
+	 */
+	public long getLength(int ordinal){
+		Objects.checkIndex(ordinal, ids.length);
+		return offsets[ordinal+1] - offsets[ordinal];
+	}
+
+	/**
+	 * Read the raw text of the given record from the SDF file.
+	 *
+	 * @param ordinal the 0-based record number.
+	 * @param charset the encoding of the file.
+	 * @return the record text including the {@code $$$$} line.
+	 * @throws IOException if there is a problem reading the file.
+	 * @throws IndexOutOfBoundsException if the ordinal is out of range.
+	 */
+	String readRecord(int ordinal, Charset charset) throws IOException{
+		try(FileChannel channel = FileChannel.open(sdfFile.toPath(), StandardOpenOption.READ)){
+			return readRecord(channel, ordinal, charset);
+		}
+	}
+
+	String readRecord(FileChannel channel, int ordinal, Charset charset) throws IOException{
+		long length = getLength(ordinal);
+		if(length > Integer.MAX_VALUE){
+			throw new IOException("record " + ordinal + " is too large: " + length + " bytes");
+		}
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, getOffset(ordinal), length);
+		return charset.decode(buffer).toString();
+	}
+
+	/**
+	 * Create a new reader that can seek to any record in this index.
+	 *
+	 * @return a new {@link IndexedSdfReader} positioned at the first record.
+	 * @throws IOException if there is a problem opening the SDF file.
+	 */
+	public IndexedSdfReader newReader() throws IOException{
+		return new IndexedSdfReader(this);
+	}
+
+	/**
+	 * Finds the record boundaries one mapped piece of the file at a time,
+	 * records and lines can span pieces.
+	 */
+	private static final class Scanner{
+		long[] offsets = new long[1024];
+		String[] ids = new String[1024];
+		int count;
+
+		private long recordStart =0;
+		private boolean atLineStart = true;
+		private boolean inTitle = true;
+		private boolean inDelimiterLine;
+		private boolean recordHasContent;
+		private int dollarCount;
+		private final ByteArrayOutputStream title = new ByteArrayOutputStream(80);
+		private String currentId;
+
+		void scan(MappedByteBuffer buffer, long bufferStart){
+			int limit = buffer.limit();
+			for(int i=0; i< limit; i++){
+				byte b = buffer.get(i);
+				if(inTitle){
+					if(b == '\n'){
+						currentId = decodeTitle();
+						inTitle = false;
+					}else{
+						title.write(b);
+					}
+				}
+				if(b == '\n'){
+					if(inDelimiterLine){
+						addRecord(bufferStart + i + 1);
+					}
+					atLineStart = true;
+					dollarCount = 0;
+					inDelimiterLine = false;
+					continue;
+				}
+				if(!Character.isWhitespace(b)){
+					recordHasContent = true;
+				}
+				if(atLineStart){
+					if(b == '$'){
+						if(++dollarCount == 4){
+							inDelimiterLine = true;
+							atLineStart = false;
+						}
+					}else{
+						atLineStart = false;
+					}
+				}
+			}
+		}
+
+		void finish(long length){
+			if(inTitle){
+				currentId = decodeTitle();
+			}
+			if(inDelimiterLine || recordHasContent){
+				addRecord(length);
+			}
+			offsets[count] = recordStart;
+		}
+
+		private String decodeTitle(){
+			String s = new String(title.toByteArray(), StandardCharsets.UTF_8);
+			title.reset();
+			if(s.endsWith("\r")){
+				return s.substring(0, s.length()-1);
+			}
+			return s;
+		}
+
+		private void addRecord(long end){
+			if(count +1 >= offsets.length){
+				offsets = Arrays.copyOf(offsets, offsets.length *2);
+				ids = Arrays.copyOf(ids, ids.length *2);
+			}
+			offsets[count] = recordStart;
+			ids[count] = currentId ==null ? "" : currentId;
+			count++;
+			recordStart = end;
+			currentId = null;
+			inTitle = true;
+			recordHasContent = false;
+		}
+	}
+}
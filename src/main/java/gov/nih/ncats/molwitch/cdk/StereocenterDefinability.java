@@ -0,0 +1,328 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.openscience.cdk.graph.GraphUtil;
+import org.openscience.cdk.graph.invariant.Canon;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IDoubleBondStereochemistry;
+import org.openscience.cdk.interfaces.IStereoElement;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.Chirality;
+
+/**
+ * Figures out which of a set of undefined stereocenters could actually
+ * be given a defined configuration.
+ *
+ * <p>
+ * A potential (or para) stereocenter is only a real stereocenter if
+ * 2 of its constitutionally equivalent branches can be told apart, and that
+ * only depends on the configuration of the other undefined centers
+ * inside those branches. So instead of trying every R/S combination of
+ * every undefined center, the centers are split into groups that can influence
+ * each other (using the graph symmetry classes from {@link Canon#symmetry(IAtomContainer, int[][])})
+ * and each group is enumerated on its own.  This keeps separate ring systems, and separate
+ * parts of a chain, from being enumerated together.
+ * </p>
+ * <p>
+ * When nothing in the structure has defined stereo, the first center of a group
+ * is always set to R since the mirror image assignment has the same definability,
+ * and once one center is found to be definable every symmetry equivalent center is too.
+ * Defined stereo is not inverted in the mirror image and isn't part of the (constitutional)
+ * symmetry classes, so when there is any, both states of every center are enumerated
+ * and each center has to be found definable on its own.
+ * </p>
+ * <p>
+ * The cost is the sum of 2<sup>groupSize-1</sup> (or 2<sup>groupSize</sup>) over the groups instead of 2<sup>n</sup>.
+ * </p>
+ */
+final class StereocenterDefinability {
+
+	private static final Logger logger = Logger.getLogger("StereocenterDefinability");
+
+	private final int[][] graph;
+	private final long[] symmetryClasses;
+	/**
+	 * The structure has defined tetrahedral (or other chiral) stereo,
+	 * so a mirror image assignment is not equivalent.
+	 */
+	private final boolean hasDefinedChirality;
+	/**
+	 * The structure has any defined stereo, including double bonds,
+	 * so symmetry equivalent centers are not necessarily equivalent.
+	 */
+	private final boolean hasDefinedStereo;
+
+	private StereocenterDefinability(int[][] graph, long[] symmetryClasses,
+									 boolean hasDefinedChirality, boolean hasDefinedStereo) {
+		this.graph = graph;
+		this.symmetryClasses = symmetryClasses;
+		this.hasDefinedChirality = hasDefinedChirality;
+		this.hasDefinedStereo = hasDefinedStereo;
+	}
+
+	/**
+	 * Create a new instance for the given container, the container
+	 * must already have any query fixes applied so that every atom has
+	 * an atomic number and implicit hydrogen count, and its stereo elements
+	 * must be the defined stereo of the structure.
+	 *
+	 * @param container the container to compute the symmetry of.
+	 *
+	 * @return an Optional wrapping the new instance or empty if the symmetry classes
+	 * could not be computed.
+	 */
+	static Optional<StereocenterDefinability> of(IAtomContainer container){
+		return of(container, GraphUtil.toAdjList(container));
+	}
+
+	/**
+	 * Same as {@link #of(IAtomContainer)} but reuses an adjacency list
+	 * that was already made for the container.
+	 *
+	 * @param container the container to compute the symmetry of.
+	 * @param g the adjacency list of the container; will not be modified.
+	 *
+	 * @return an Optional wrapping the new instance or empty if the symmetry classes
+	 * could not be computed.
+	 */
+	static Optional<StereocenterDefinability> of(IAtomContainer container, int[][] g){
+		boolean hasDefinedChirality = false;
+		boolean hasDefinedStereo = false;
+		for(IStereoElement<?, ?> se : container.stereoElements()){
+			hasDefinedStereo = true;
+			//reflection doesn't change E/Z
+			if(!(se instanceof IDoubleBondStereochemistry)){
+				hasDefinedChirality = true;
+				break;
+			}
+		}
+		try {
+			return Optional.of(new StereocenterDefinability(g, Canon.symmetry(container, g),
+					hasDefinedChirality, hasDefinedStereo));
+		}catch(RuntimeException e){
+			logger.fine(String.format("could not compute symmetry classes: %s", e.getMessage()));
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Partition the given undefined stereocenters into groups of centers
+	 * whose definability can depend on each other.  Two centers are put in the same group
+	 * if one of them is found inside a pair of symmetry equivalent branches of the other
+	 * (see {@link #atomsInEquivalentBranches(int)}).
+	 *
+	 * @param undefinedCenters the atom indexes of the undefined stereocenters.
+	 *
+	 * @return a List of groups of atom indexes; every undefined center is in exactly one group.
+	 */
+	List<List<Integer>> dependentGroups(List<Integer> undefinedCenters){
+		int[] parent = new int[graph.length];
+		for(int i=0; i< parent.length; i++){
+			parent[i]=i;
+		}
+		boolean[] isUndefined = new boolean[graph.length];
+		for(int c : undefinedCenters){
+			isUndefined[c] = true;
+		}
+		for(int center : undefinedCenters){
+			for(int a : atomsInEquivalentBranches(center)){
+				if(isUndefined[a]){
+					union(parent, center, a);
+				}
+			}
+		}
+		Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+		for(int c : undefinedCenters){
+			groups.computeIfAbsent(find(parent, c), k-> new ArrayList<>()).add(c);
+		}
+		return new ArrayList<>(groups.values());
+	}
+
+	/**
+	 * Find which of the undefined centers can be defined by setting R/S on the centers
+	 * in the given copy and relabelling.
+	 *
+	 * @param copy a deep copy of the chemical to set chiralities on; will be modified.
+	 * @param copyImpl the impl of the copy.
+	 * @param undefinedCenters the atom indexes of the undefined stereocenters.
+	 * @param maxGroupSize the largest group of interdependent centers that we are willing to enumerate.
+	 *
+	 * @return the Set of atom indexes that are definable, or empty if a group
+	 * was larger than maxGroupSize and nothing was computed.
+	 */
+	Optional<Set<Integer>> findDefinable(Chemical copy, CdkChemicalImpl copyImpl,
+										 List<Integer> undefinedCenters, int maxGroupSize){
+		List<List<Integer>> groups = dependentGroups(undefinedCenters);
+		for(List<Integer> group : groups){
+			if(group.size() > maxGroupSize){
+				return Optional.empty();
+			}
+		}
+		Set<Integer> isDefinable = new HashSet<>();
+		for(List<Integer> group : groups){
+			if(isDefinable.containsAll(group)){
+				continue;
+			}
+			//centers outside the group can't change the group's result
+			//so just hold them all at R
+			for(int c : undefinedCenters){
+				if(!group.contains(c)){
+					copy.getAtom(c).setChirality(Chirality.R);
+				}
+			}
+			int n = group.size();
+			//the first center is only held at R when the mirror image is equivalent
+			int fixed = hasDefinedChirality ? 0 : 1;
+			for(long ii=0; ii < (1L << (n-fixed)); ii++){
+				copyImpl.setDirty();
+				for(int ks=0; ks < n; ks++){
+					boolean isR = ks < fixed || ((ii >> (ks-fixed)) & 1) ==1;
+					copy.getAtom(group.get(ks)).setChirality(isR ? Chirality.R : Chirality.S);
+				}
+				for(int c : group){
+					if(copy.getAtom(c).getChirality().isDefined()){
+						if(hasDefinedStereo){
+							isDefinable.add(c);
+						}else {
+							addWithEquivalents(c, undefinedCenters, isDefinable);
+						}
+					}
+				}
+				if(isDefinable.containsAll(group)){
+					break;
+				}
+			}
+		}
+		return Optional.of(isDefinable);
+	}
+
+	/**
+	 * Walk out from the center through each of its symmetry equivalent neighbors
+	 * at the same time, one bond at a time, never going back through the center.
+	 * Each walk only covers the part of the graph that is unique to its branch:
+	 * an atom reached by 2 branches at the same time (like the 4 position of a 1,4 disubstituted
+	 * cyclohexane) is included but not walked past, since whatever is attached
+	 * beyond it is shared by both branches and can't tell them apart.
+	 *
+	 * @param center the atom index of the stereocenter.
+	 * @return the atom indexes whose configuration can change whether the branches are equivalent;
+	 * will be empty if the center has no equivalent neighbors.
+	 */
+	private List<Integer> atomsInEquivalentBranches(int center){
+		List<Integer> roots = equivalentNeighbors(center);
+		List<Integer> region = new ArrayList<>();
+		if(roots.isEmpty()){
+			return region;
+		}
+		//which branch reached each atom first; -1 if not reached yet
+		int[] branch = new int[graph.length];
+		Arrays.fill(branch, -1);
+		branch[center] = Integer.MAX_VALUE;
+		List<Integer> frontier = new ArrayList<>();
+		for(int i=0; i< roots.size(); i++){
+			int r = roots.get(i);
+			branch[r] = i;
+			frontier.add(r);
+			region.add(r);
+		}
+		while(!frontier.isEmpty()){
+			Map<Integer, Integer> next = new LinkedHashMap<>();
+			Set<Integer> meetingPoints = new HashSet<>();
+			for(int a : frontier){
+				for(int w : graph[a]){
+					if(branch[w] !=-1){
+						continue;
+					}
+					Integer other = next.putIfAbsent(w, branch[a]);
+					if(other !=null && other !=branch[a]){
+						meetingPoints.add(w);
+					}
+				}
+			}
+			frontier = new ArrayList<>();
+			for(Map.Entry<Integer, Integer> e : next.entrySet()){
+				int w = e.getKey();
+				branch[w] = e.getValue();
+				region.add(w);
+				if(!meetingPoints.contains(w)){
+					frontier.add(w);
+				}
+			}
+		}
+		return region;
+	}
+
+	private void addWithEquivalents(int center, Collection<Integer> undefinedCenters, Set<Integer> isDefinable){
+		for(int c : undefinedCenters){
+			if(symmetryClasses[c] == symmetryClasses[center]){
+				isDefinable.add(c);
+			}
+		}
+	}
+
+	private List<Integer> equivalentNeighbors(int center){
+		int[] neighbors = graph[center];
+		List<Integer> equivalent = new ArrayList<>();
+		for(int i=0; i< neighbors.length; i++){
+			for(int j=i+1; j< neighbors.length; j++){
+				if(symmetryClasses[neighbors[i]] == symmetryClasses[neighbors[j]]){
+					if(!equivalent.contains(neighbors[i])){
+						equivalent.add(neighbors[i]);
+					}
+					if(!equivalent.contains(neighbors[j])){
+						equivalent.add(neighbors[j]);
+					}
+				}
+			}
+		}
+		return equivalent;
+	}
+
+	private static int find(int[] parent, int i){
+		while(parent[i] !=i){
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static void union(int[] parent, int i, int j){
+		int ri = find(parent, i);
+		int rj = find(parent, j);
+		if(ri !=rj){
+			parent[rj] = ri;
+		}
+	}
+}
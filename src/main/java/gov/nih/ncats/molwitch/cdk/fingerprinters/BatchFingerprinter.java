@@ -0,0 +1,229 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk.fingerprinters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprint;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinter;
+
+/**
+ * Computes the fingerprints of many structures at once on a {@link ForkJoinPool}
+ * and writes them straight into a {@link PackedFingerprints} so there is no
+ * {@link Fingerprint} or {@link BitSet} kept per structure.
+ *
+ * <p>
+ * The CDK fingerprinters keep state while they work so each pool thread
+ * gets its own {@link Fingerprinter} from the supplier.  A structure that can't be
+ * fingerprinted doesn't fail the batch, it is left empty and flagged
+ * in {@link PackedFingerprints#isFailed(int)}.
+ * </p>
+ *
+ * Get one from {@link DefaultFingerPrinter#createBatchFingerprinterFor(gov.nih.ncats.molwitch.fingerprint.Fingerprinters.FingerprintSpecification)}
+ * or {@link EcfpFingerPrinter#createBatchFingerprinterFor(gov.nih.ncats.molwitch.fingerprint.Fingerprinters.FingerprintSpecification)}.
+ */
+public final class BatchFingerprinter {
+
+	private static final Logger logger = Logger.getLogger("BatchFingerprinter");
+
+	/**
+	 * Structures fingerprinted by one task before it stops splitting.
+	 */
+	private static final int LEAF_SIZE = 64;
+	/**
+	 * How many structures are taken from a Stream at a time.
+	 */
+	private static final int STREAM_CHUNK_SIZE = 8192;
+
+	private final ThreadLocal<Fingerprinter> fingerprinters;
+	private final int length;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Create a new BatchFingerprinter that runs on the common pool.
+	 *
+	 * @param fingerprinterSupplier makes a new Fingerprinter for each thread.
+	 * @param length the length in bits of the fingerprints it makes.
+	 */
+	public BatchFingerprinter(Supplier<? extends Fingerprinter> fingerprinterSupplier, int length) {
+		this(fingerprinterSupplier, length, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Create a new BatchFingerprinter.
+	 *
+	 * @param fingerprinterSupplier makes a new Fingerprinter for each thread.
+	 * @param length the length in bits of the fingerprints it makes.
+	 * @param pool the pool to compute the fingerprints on.
+	 */
+	public BatchFingerprinter(Supplier<? extends Fingerprinter> fingerprinterSupplier, int length, ForkJoinPool pool) {
+		Objects.requireNonNull(fingerprinterSupplier);
+		if(length < 1){
+			throw new IllegalArgumentException("length must be positive: " + length);
+		}
+		this.fingerprinters = ThreadLocal.withInitial(fingerprinterSupplier);
+		this.length = length;
+		this.pool = Objects.requireNonNull(pool);
+	}
+
+	/**
+	 * The length in bits of the fingerprints.
+	 */
+	public int getLength(){
+		return length;
+	}
+
+	/**
+	 * Fingerprint every structure in the list.
+	 *
+	 * @param chemicals the structures; none may be null.
+	 * @return the fingerprints in the same order as the list.
+	 */
+	public PackedFingerprints computeAll(List<? extends Chemical> chemicals){
+		int size = chemicals.size();
+		long[] words = new long[size * PackedFingerprints.wordsFor(length)];
+		BitSet failed = new BitSet();
+		compute(chemicals, words, 0, failed);
+		return new PackedFingerprints(words, length, size, failed);
+	}
+
+	/**
+	 * Fingerprint every structure in the stream.  The stream is read a chunk at
+	 * a time on the calling thread so only one chunk of structures is held
+	 * in memory at once.
+	 *
+	 * @param chemicals the structures; none may be null.
+	 * @return the fingerprints in the encounter order of the stream.
+	 */
+	public PackedFingerprints computeAll(Stream<? extends Chemical> chemicals){
+		int stride = PackedFingerprints.wordsFor(length);
+		long[] words = new long[STREAM_CHUNK_SIZE * stride];
+		BitSet failed = new BitSet();
+		int size = 0;
+		List<Chemical> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+		Iterator<? extends Chemical> iter = chemicals.iterator();
+		while(iter.hasNext()){
+			chunk.add(iter.next());
+			if(chunk.size() == STREAM_CHUNK_SIZE || !iter.hasNext()){
+				int needed = (size + chunk.size()) * stride;
+				if(needed > words.length){
+					words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+				}
+				compute(chunk, words, size, failed);
+				size += chunk.size();
+				chunk.clear();
+			}
+		}
+		return new PackedFingerprints(words, length, size, failed);
+	}
+
+	/**
+	 * Fingerprint a single structure with this thread's fingerprinter.
+	 */
+	Fingerprint computeFingerprint(Chemical chemical){
+		return fingerprinters.get().computeFingerprint(chemical);
+	}
+
+	/**
+	 * The pool the fingerprints are computed on.
+	 */
+	ForkJoinPool getPool(){
+		return pool;
+	}
+
+	private void compute(List<? extends Chemical> chemicals, long[] words, int offset, BitSet failed){
+		if(chemicals.isEmpty()){
+			return;
+		}
+		BitSet chunkFailures = new BitSet();
+		pool.invoke(new FingerprintTask(chemicals, 0, chemicals.size(), words, offset, chunkFailures));
+		for(int i = chunkFailures.nextSetBit(0); i >= 0; i = chunkFailures.nextSetBit(i + 1)){
+			failed.set(offset + i);
+		}
+	}
+
+	private void fingerprint(Chemical chemical, long[] words, int wordOffset){
+		BitSet bits = computeFingerprint(chemical).toBitSet();
+		for(int b = bits.nextSetBit(0); b >= 0; b = bits.nextSetBit(b + 1)){
+			if(b >= length){
+				throw new IllegalStateException("fingerprint has bit " + b + " set but the length is " + length);
+			}
+			words[wordOffset + (b >>> 6)] |= 1L << b;
+		}
+	}
+
+	private final class FingerprintTask extends RecursiveAction{
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<? extends Chemical> chemicals;
+		private final int start, end;
+		private final long[] words;
+		private final int offset;
+		private final BitSet failed;
+
+		FingerprintTask(List<? extends Chemical> chemicals, int start, int end, long[] words, int offset, BitSet failed) {
+			this.chemicals = chemicals;
+			this.start = start;
+			this.end = end;
+			this.words = words;
+			this.offset = offset;
+			this.failed = failed;
+		}
+
+		@Override
+		protected void compute() {
+			if(end - start > LEAF_SIZE){
+				int mid = (start + end) >>> 1;
+				invokeAll(new FingerprintTask(chemicals, start, mid, words, offset, failed),
+						new FingerprintTask(chemicals, mid, end, words, offset, failed));
+				return;
+			}
+			int stride = PackedFingerprints.wordsFor(length);
+			for(int i = start; i < end; i++){
+				int wordOffset = (offset + i) * stride;
+				try{
+					fingerprint(chemicals.get(i), words, wordOffset);
+				}catch(Exception e){
+					//leave it empty
+					Arrays.fill(words, wordOffset, wordOffset + stride, 0L);
+					synchronized (failed){
+						failed.set(i);
+					}
+					logger.log(Level.FINE, "could not fingerprint structure " + (offset + i), e);
+				}
+			}
+		}
+	}
+}
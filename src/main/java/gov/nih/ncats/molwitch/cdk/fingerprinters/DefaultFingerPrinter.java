@@ -70,4 +70,18 @@ public class DefaultFingerPrinter implements FingerprinterImpl{
 		return adapter;
 	}
 
+	/**
+	 * Create a {@link BatchFingerprinter} that makes the same fingerprints
+	 * as {@link #createFingerPrinterFor(FingerprintSpecification)}.
+	 *
+	 * @param fingerPrinterOptions the options; may be null for the default path based fingerprint.
+	 * @return a new BatchFingerprinter that runs on the common pool.
+	 */
+	public BatchFingerprinter createBatchFingerprinterFor(FingerprintSpecification fingerPrinterOptions) {
+		int length = fingerPrinterOptions instanceof PathBasedSpecification ?
+				((PathBasedSpecification)fingerPrinterOptions).getLength()
+				: org.openscience.cdk.fingerprint.Fingerprinter.DEFAULT_SIZE;
+		return new BatchFingerprinter(()-> createFingerPrinterFor(fingerPrinterOptions), length);
+	}
+
 }
@@ -88,4 +88,16 @@ public class EcfpFingerPrinter implements FingerprinterImpl{
 		adapter.setRemoveQueryAtomsAndBonds(true); // do we need this?
 		return adapter;
 	}
+
+	/**
+	 * Create a {@link BatchFingerprinter} that makes the same fingerprints
+	 * as {@link #createFingerPrinterFor(FingerprintSpecification)}.
+	 *
+	 * @param fingerPrinterOptions the ECFP or FCFP options.
+	 * @return a new BatchFingerprinter that runs on the common pool.
+	 */
+	public BatchFingerprinter createBatchFingerprinterFor(FingerprintSpecification fingerPrinterOptions) {
+		int length = ((AbstractCfpOptions<?>)fingerPrinterOptions).getBitLength();
+		return new BatchFingerprinter(()-> createFingerPrinterFor(fingerPrinterOptions), length);
+	}
 }
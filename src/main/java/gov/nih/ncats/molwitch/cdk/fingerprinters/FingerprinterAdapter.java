@@ -24,12 +24,10 @@ package gov.nih.ncats.molwitch.cdk.fingerprinters;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
+import org.openscience.cdk.AtomRef;
+import org.openscience.cdk.BondRef;
 import org.openscience.cdk.aromaticity.Aromaticity;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.fingerprint.IBitFingerprint;
@@ -38,10 +36,11 @@ import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IBond.Order;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.IQueryBond;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 
 import gov.nih.ncats.common.sneak.Sneak;
-import gov.nih.ncats.common.util.CachedSupplier;
 import gov.nih.ncats.molwitch.Chemical;
 import gov.nih.ncats.molwitch.ChemicalSource;
 import gov.nih.ncats.molwitch.cdk.CdkChemicalImpl;
@@ -102,66 +101,35 @@ class FingerprinterAdapter implements Fingerprinter {
 		//so lets remove them
 		IAtomContainer orig = (IAtomContainer)chemical.getImpl().getWrappedObject();
 
-		CachedSupplier<IAtomContainer> cloneCache = CachedSupplier.of(()->{
-			try {
-			    Chemical cc=chemical.copy();
-			    IAtomContainer cln = (IAtomContainer)cc.getImpl().getWrappedObject();
-			    try {
-		            CdkUtil.removeQueryAtoms(cln);
-		            CdkUtil.removeQueryBonds(cln);
-		            cln=CdkUtil.getSimplifiedContainer(cln);
-			        // The logic here is a little suspect, and may not be necessary,
-			        // but the basic idea is to flag all bonds that will
-			        // be modified by the aromatic detection and mark them for removal
-			        // as they will interfere with fingerprints
-			        Map<IBond, String> oldOrder = new HashMap<>();
-			        Iterator<IBond> bondIter2 = cln.bonds().iterator();
-                    while(bondIter2.hasNext()){
-                        IBond next = bondIter2.next();
-                        oldOrder.put(next, next.getOrder() + "" + next.isAromatic());
-                    }
-                    AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(cln);
-		            Aromaticity.cdkLegacy().apply(cln);
-		            CdkUtil.removeQueryBonds(cln);
-		           
-		            Iterator<IBond> bondIter = cln.bonds().iterator();
-		            while(bondIter.hasNext()){
-		                IBond next = bondIter.next();
-		                if(next.getOrder() ==null || next.getOrder() == Order.UNSET ||
-		                        !(next.getOrder() + "" + next.isAromatic()).equals(oldOrder.get(next))){
-		                    next.setOrder(Order.UNSET);
-		                }
-		            }
-		        }catch(Exception e) {
-		            //swallow issue
-//		            e.printStackTrace();		            
-		        }
-				return cln;
-			}catch(Exception t){
-				return Sneak.sneakyThrow(t);
+		IAtomContainer iac;
+		if(removeQueryAtomsAndBonds || forceExplicitH){
+			//the cdk fingerprinter perceives atom types and aromaticity on the container
+			//it is given so it has to be a copy, but one copy that we own is enough:
+			//it is cleaned up in place and fingerprinted directly
+			boolean hasQueryFeatures = hasQueryFeatures(orig);
+			IAtomContainer containerToFingerprint = createCleanedCopy(orig, hasQueryFeatures);
+			if(removeQueryAtomsAndBonds){
+				if(hasQueryFeatures) {
+					CdkUtil.removeQueryAtoms(containerToFingerprint);
+				}
+				CdkUtil.removeQueryBonds(containerToFingerprint);
 			}
-		});
-		IAtomContainer containerToFingerprint = orig;
+			//This whole idea here is a bit suspicious
+			if(forceExplicitH){
+				AtomContainerManipulator.convertImplicitToExplicitHydrogens(containerToFingerprint);
+			}
+			// TODO:
+			// IF IAtomContainer is a query container, it simply doesn't produce
+			// ANY fingerprint, and something needs to be done.
 
-		if(removeQueryAtomsAndBonds){
-			containerToFingerprint = cloneCache.get();
-			CdkUtil.removeQueryAtoms(containerToFingerprint);
-			CdkUtil.removeQueryBonds(containerToFingerprint);
-		}
-		//This whole idea here is a bit suspicious
-		if(forceExplicitH){
-			containerToFingerprint = cloneCache.get();
-			AtomContainerManipulator.convertImplicitToExplicitHydrogens(containerToFingerprint);
+			//either our copy or a new query container, neither needs copying again
+			iac = CdkUtil.getUsableFormOfAtomContainer(containerToFingerprint);
+		}else{
+			iac = CdkUtil.getUsableFormOfAtomContainer(orig);
+			//protect the original from the fingerprinter's perception
+			iac = CdkUtil.getSimplifiedContainer(iac);
 		}
 		
-		IAtomContainer iac= CdkUtil.getUsableFormOfAtomContainer(containerToFingerprint);
-		
-		// TODO:
-		// IF IAtomContainer is a query container, it simply doesn't produce
-		// ANY fingerprint, and something needs to be done.
-
-		iac = CdkUtil.getSimplifiedContainer(iac);
-		
 		try {
 		    IBitFingerprint bitFingerprint = delegate.getBitFingerprint(iac);
 		    BitSet bs = bitFingerprint.asBitSet();
@@ -170,4 +138,88 @@ class FingerprinterAdapter implements Fingerprinter {
 		    throw new RuntimeException(e);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Does the container have anything {@link CdkUtil#removeQueryAtoms(IAtomContainer)}
+	 * or {@link CdkUtil#removeQueryBonds(IAtomContainer)} could remove.
+	 */
+	private static boolean hasQueryFeatures(IAtomContainer container){
+		for(IAtom a : container.atoms()){
+			if(a.getSymbol() ==null || AtomRef.deref(a) instanceof IQueryAtom){
+				return true;
+			}
+		}
+		for(IBond b : container.bonds()){
+			if(b.getOrder() ==null || b.getOrder() == Order.UNSET || BondRef.deref(b) instanceof IQueryBond){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Make the copy that gets fingerprinted: query atoms and bonds removed,
+	 * atom types and cdk legacy aromaticity perceived and the order of every bond
+	 * that perception changed set to UNSET.
+	 */
+	private static IAtomContainer createCleanedCopy(IAtomContainer orig, boolean hasQueryFeatures){
+		IAtomContainer cln;
+		try {
+			cln = orig.clone();
+		} catch (CloneNotSupportedException e) {
+			return Sneak.sneakyThrow(e);
+		}
+		try {
+			if(hasQueryFeatures) {
+				CdkUtil.removeQueryAtoms(cln);
+				CdkUtil.removeQueryBonds(cln);
+			}
+			// The logic here is a little suspect, and may not be necessary,
+			// but the basic idea is to flag all bonds that will
+			// be modified by the aromatic detection and mark them for removal
+			// as they will interfere with fingerprints
+			int bondCount = cln.getBondCount();
+			int[] oldOrder = new int[bondCount];
+			for(int i=0; i< bondCount; i++){
+				oldOrder[i] = orderAndAromaticity(cln.getBond(i));
+			}
+			AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(cln);
+			Aromaticity.cdkLegacy().apply(cln);
+
+			List<IBond> changed = null;
+			for(int i=0; i< bondCount; i++){
+				IBond next = cln.getBond(i);
+				if(orderAndAromaticity(next) != oldOrder[i]){
+					if(changed ==null){
+						changed = new ArrayList<>();
+					}
+					changed.add(next);
+				}
+			}
+			//perception doesn't change bond orders so there is nothing new
+			//to remove unless there were query bonds to begin with
+			if(hasQueryFeatures) {
+				CdkUtil.removeQueryBonds(cln);
+				for(IBond next : cln.bonds()){
+					if(next.getOrder() ==null){
+						next.setOrder(Order.UNSET);
+					}
+				}
+			}
+			if(changed !=null){
+				for(IBond next : changed){
+					next.setOrder(Order.UNSET);
+				}
+			}
+		}catch(Exception e) {
+			//swallow issue
+		}
+		return cln;
+	}
+
+	private static int orderAndAromaticity(IBond bond){
+		Order order = bond.getOrder();
+		int o = order ==null ? 0 : order.ordinal() + 1;
+		return o << 1 | (bond.isAromatic() ? 1 : 0);
+	}
+}
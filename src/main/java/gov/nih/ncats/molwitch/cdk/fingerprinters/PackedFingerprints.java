@@ -0,0 +1,137 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk.fingerprinters;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import gov.nih.ncats.molwitch.fingerprint.Fingerprint;
+
+/**
+ * Fingerprints of many structures packed into one {@code long[]}.
+ * Every fingerprint takes the same number of words (the stride) so
+ * fingerprint {@code i} is the words {@code [i*stride, (i+1)*stride)},
+ * with bit {@code b} in word {@code b/64} at position {@code b%64}
+ * which is the same layout as {@link BitSet#toLongArray()}.
+ *
+ * <p>
+ * Made by a {@link BatchFingerprinter}; the order is the order the structures were given in.
+ * </p>
+ */
+public final class PackedFingerprints {
+
+	private final long[] words;
+	private final int stride;
+	private final int length;
+	private final int size;
+	private final BitSet failed;
+
+	PackedFingerprints(long[] words, int length, int size, BitSet failed) {
+		this.words = words;
+		this.length = length;
+		this.stride = wordsFor(length);
+		this.size = size;
+		this.failed = failed;
+	}
+
+	static int wordsFor(int length){
+		return (length + 63) >>> 6;
+	}
+
+	/**
+	 * The number of fingerprints.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * The length of each fingerprint in bits.
+	 */
+	public int getLength(){
+		return length;
+	}
+
+	/**
+	 * The number of longs each fingerprint takes.
+	 */
+	public int getStride(){
+		return stride;
+	}
+
+	/**
+	 * The packed words themselves, not a copy.  Only the first
+	 * {@code size() * getStride()} words are used.
+	 *
+	 * @return the backing array; changing it changes this object.
+	 */
+	public long[] getWords(){
+		return words;
+	}
+
+	/**
+	 * Could the fingerprint for the given structure not be computed.
+	 * Failed fingerprints are left with no bits set.
+	 *
+	 * @param i the 0-based index of the structure.
+	 * @return {@code true} if fingerprinting threw an exception.
+	 */
+	public boolean isFailed(int i){
+		checkIndex(i);
+		return failed.get(i);
+	}
+
+	/**
+	 * The number of structures that could not be fingerprinted.
+	 */
+	public int getFailureCount(){
+		return failed.cardinality();
+	}
+
+	/**
+	 * The number of bits set in the given fingerprint.
+	 */
+	public int populationCount(int i){
+		checkIndex(i);
+		int offset = i * stride;
+		int count = 0;
+		for(int w = 0; w < stride; w++){
+			count += Long.bitCount(words[offset + w]);
+		}
+		return count;
+	}
+
+	/**
+	 * The given fingerprint as a molwitch {@link Fingerprint}.  This makes
+	 * a new object every time so avoid it in tight loops.
+	 */
+	public Fingerprint get(int i){
+		checkIndex(i);
+		return new Fingerprint(BitSet.valueOf(Arrays.copyOfRange(words, i * stride, (i + 1) * stride)), length);
+	}
+
+	private void checkIndex(int i){
+		if(i < 0 || i >= size){
+			throw new IndexOutOfBoundsException("index " + i + " out of range 0 - " + size);
+		}
+	}
+}
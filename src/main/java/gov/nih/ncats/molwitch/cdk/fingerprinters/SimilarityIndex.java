@@ -0,0 +1,431 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk.fingerprinters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprint;
+
+/**
+ * An in memory index of fingerprints that answers Tanimoto
+ * similarity queries: the k most similar, or all at or above a threshold.
+ *
+ * <p>
+ * The fingerprints are kept packed in one {@code long[]} sorted by the number of bits set.
+ * Two fingerprints with {@code a} and {@code b} bits set can't have a Tanimoto similarity above
+ * {@code min(a,b)/max(a,b)}, so a threshold query only looks at the contiguous run of fingerprints
+ * whose bit count could reach the threshold, and a top-k query visits the bit count buckets
+ * from the best bound down and stops as soon as no bucket left can beat the k-th hit.
+ * Large runs are scanned in parallel on the index's {@link ForkJoinPool}.
+ * </p>
+ *
+ * <p>
+ * Hits are reported by the index of the structure in the list or stream the index was built from.
+ * Structures that failed to fingerprint, or have no bits set, are never hits.
+ * The index is immutable and safe to query from many threads.
+ * </p>
+ */
+public final class SimilarityIndex {
+
+	/**
+	 * Runs shorter than this are scanned on the calling thread.
+	 */
+	private static final int PARALLEL_THRESHOLD = 8192;
+	/**
+	 * Guards the bit count bounds against floating point rounding.
+	 */
+	private static final double EPSILON = 1E-9;
+
+	private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::getSimilarity)
+																.thenComparing(Comparator.comparingInt(Hit::getIndex).reversed());
+
+	private final BatchFingerprinter fingerprinter;
+	private final ForkJoinPool pool;
+	private final int length;
+	private final int stride;
+	private final int size;
+	/**
+	 * The fingerprints ordered by bit count.
+	 */
+	private final long[] words;
+	/**
+	 * The original index of each sorted fingerprint.
+	 */
+	private final int[] indexes;
+	/**
+	 * The fingerprints with {@code b} bits set are at
+	 * {@code [bucketStarts[b], bucketStarts[b+1])}.
+	 */
+	private final int[] bucketStarts;
+
+	private SimilarityIndex(BatchFingerprinter fingerprinter, PackedFingerprints fingerprints) {
+		this.fingerprinter = fingerprinter;
+		this.pool = fingerprinter.getPool();
+		this.length = fingerprints.getLength();
+		this.stride = fingerprints.getStride();
+		this.size = fingerprints.size();
+
+		//counting sort by bit count, failed ones are left in bucket 0
+		int[] counts = new int[size];
+		int[] bucketSizes = new int[length + 2];
+		for(int i = 0; i < size; i++){
+			counts[i] = fingerprints.isFailed(i) ? 0 : fingerprints.populationCount(i);
+			bucketSizes[counts[i] + 1]++;
+		}
+		bucketStarts = new int[length + 2];
+		for(int b = 1; b < bucketStarts.length; b++){
+			bucketStarts[b] = bucketStarts[b - 1] + bucketSizes[b];
+		}
+		int[] next = Arrays.copyOf(bucketStarts, bucketStarts.length);
+		long[] source = fingerprints.getWords();
+		words = new long[size * stride];
+		indexes = new int[size];
+		for(int i = 0; i < size; i++){
+			int position = next[counts[i]]++;
+			indexes[position] = i;
+			System.arraycopy(source, i * stride, words, position * stride, stride);
+		}
+	}
+
+	/**
+	 * Fingerprint all the structures in the list and index them.
+	 *
+	 * @param fingerprinter the BatchFingerprinter to use, queries by {@link Chemical} use it too.
+	 * @param chemicals the structures to index.
+	 * @return a new SimilarityIndex.
+	 */
+	public static SimilarityIndex build(BatchFingerprinter fingerprinter, List<? extends Chemical> chemicals){
+		return new SimilarityIndex(fingerprinter, fingerprinter.computeAll(chemicals));
+	}
+
+	/**
+	 * Fingerprint all the structures in the stream and index them.
+	 *
+	 * @param fingerprinter the BatchFingerprinter to use, queries by {@link Chemical} use it too.
+	 * @param chemicals the structures to index.
+	 * @return a new SimilarityIndex.
+	 */
+	public static SimilarityIndex build(BatchFingerprinter fingerprinter, Stream<? extends Chemical> chemicals){
+		return new SimilarityIndex(fingerprinter, fingerprinter.computeAll(chemicals));
+	}
+
+	/**
+	 * Index fingerprints that were already computed.
+	 *
+	 * @param fingerprinter the BatchFingerprinter that made them, queries by {@link Chemical} use it.
+	 * @param fingerprints the fingerprints to index.
+	 * @return a new SimilarityIndex.
+	 * @throws IllegalArgumentException if the lengths don't match.
+	 */
+	public static SimilarityIndex of(BatchFingerprinter fingerprinter, PackedFingerprints fingerprints){
+		if(fingerprinter.getLength() != fingerprints.getLength()){
+			throw new IllegalArgumentException("fingerprints are " + fingerprints.getLength()
+					+ " bits but the fingerprinter makes " + fingerprinter.getLength());
+		}
+		return new SimilarityIndex(fingerprinter, fingerprints);
+	}
+
+	/**
+	 * The number of structures indexed, including any that failed.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * The length of the fingerprints in bits.
+	 */
+	public int getLength(){
+		return length;
+	}
+
+	/**
+	 * The k structures most similar to the query.
+	 *
+	 * @param query the query structure.
+	 * @param k the maximum number of hits.
+	 * @return the hits, most similar first; ties go to the lower index.
+	 */
+	public List<Hit> topK(Chemical query, int k){
+		return topK(fingerprinter.computeFingerprint(query), k);
+	}
+
+	/**
+	 * The k structures most similar to the query.
+	 *
+	 * @param query the query fingerprint, must be the same length as the index.
+	 * @param k the maximum number of hits.
+	 * @return the hits, most similar first; ties go to the lower index.
+	 */
+	public List<Hit> topK(Fingerprint query, int k){
+		if(k < 1){
+			throw new IllegalArgumentException("k must be positive: " + k);
+		}
+		long[] q = toWords(query);
+		int a = popcount(q, 0);
+		if(a == 0){
+			return Collections.emptyList();
+		}
+		PriorityQueue<Hit> best = new PriorityQueue<>(k + 1, WORST_FIRST);
+		//walk the buckets out from a in order of their bound
+		int lower = a, upper = a + 1;
+		while(lower > 0 || upper <= length){
+			int b;
+			if(lower < 1){
+				b = upper++;
+			}else if(upper > length || bound(a, lower) >= bound(a, upper)){
+				b = lower--;
+			}else{
+				b = upper++;
+			}
+			if(best.size() == k && bound(a, b) < best.peek().getSimilarity() - EPSILON){
+				break;
+			}
+			int start = bucketStarts[b], end = bucketStarts[b + 1];
+			if(start == end){
+				continue;
+			}
+			for(Hit hit : scan(q, a, start, end, 0, k)){
+				offer(best, hit, k);
+			}
+		}
+		return sorted(best);
+	}
+
+	/**
+	 * All the structures with a Tanimoto similarity to the query at or above the threshold.
+	 *
+	 * @param query the query structure.
+	 * @param threshold the minimum similarity, between 0 and 1.
+	 * @return the hits, most similar first; ties go to the lower index.
+	 */
+	public List<Hit> threshold(Chemical query, double threshold){
+		return threshold(fingerprinter.computeFingerprint(query), threshold);
+	}
+
+	/**
+	 * All the structures with a Tanimoto similarity to the query at or above the threshold.
+	 *
+	 * @param query the query fingerprint, must be the same length as the index.
+	 * @param threshold the minimum similarity, between 0 and 1.
+	 * @return the hits, most similar first; ties go to the lower index.
+	 */
+	public List<Hit> threshold(Fingerprint query, double threshold){
+		if(threshold < 0 || threshold > 1){
+			throw new IllegalArgumentException("threshold must be between 0 and 1: " + threshold);
+		}
+		long[] q = toWords(query);
+		int a = popcount(q, 0);
+		if(a == 0){
+			return Collections.emptyList();
+		}
+		//only fingerprints with between a*t and a/t bits set can reach t
+		int minBits = Math.max(1, (int) Math.ceil(a * threshold - EPSILON));
+		int maxBits = threshold == 0 ? length : Math.min(length, (int) Math.floor(a / threshold + EPSILON));
+		if(minBits > maxBits){
+			return Collections.emptyList();
+		}
+		List<Hit> hits = scan(q, a, bucketStarts[minBits], bucketStarts[maxBits + 1], threshold, Integer.MAX_VALUE);
+		hits.sort(WORST_FIRST.reversed());
+		return hits;
+	}
+
+	private List<Hit> scan(long[] q, int a, int start, int end, double threshold, int k){
+		if(end - start < PARALLEL_THRESHOLD){
+			return new ScanTask(q, a, start, end, threshold, k).compute();
+		}
+		return pool.invoke(new ScanTask(q, a, start, end, threshold, k));
+	}
+
+	private static void offer(PriorityQueue<Hit> best, Hit hit, int k){
+		if(best.size() < k){
+			best.add(hit);
+		}else if(WORST_FIRST.compare(hit, best.peek()) > 0){
+			best.poll();
+			best.add(hit);
+		}
+	}
+
+	private static List<Hit> sorted(PriorityQueue<Hit> best){
+		List<Hit> list = new ArrayList<>(best);
+		list.sort(WORST_FIRST.reversed());
+		return list;
+	}
+
+	private static double bound(int a, int b){
+		return a < b ? (double) a / b : (double) b / a;
+	}
+
+	private long[] toWords(Fingerprint query){
+		Objects.requireNonNull(query);
+		if(query.getLength() != length){
+			throw new IllegalArgumentException("query fingerprint is " + query.getLength() + " bits but the index is " + length);
+		}
+		return Arrays.copyOf(query.toBitSet().toLongArray(), stride);
+	}
+
+	private int popcount(long[] w, int offset){
+		int count = 0;
+		for(int i = 0; i < stride; i++){
+			count += Long.bitCount(w[offset + i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Scores a run of sorted fingerprints, keeping the hits at or above
+	 * the threshold, or only the best k of them.
+	 */
+	private final class ScanTask extends RecursiveTask<List<Hit>>{
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] q;
+		private final int a;
+		private final int start, end;
+		private final double threshold;
+		private final int k;
+
+		ScanTask(long[] q, int a, int start, int end, double threshold, int k) {
+			this.q = q;
+			this.a = a;
+			this.start = start;
+			this.end = end;
+			this.threshold = threshold;
+			this.k = k;
+		}
+
+		@Override
+		protected List<Hit> compute() {
+			if(end - start >= PARALLEL_THRESHOLD){
+				int mid = (start + end) >>> 1;
+				ScanTask right = new ScanTask(q, a, mid, end, threshold, k);
+				right.fork();
+				List<Hit> hits = new ScanTask(q, a, start, mid, threshold, k).compute();
+				return merge(hits, right.join());
+			}
+			if(k == Integer.MAX_VALUE){
+				List<Hit> hits = new ArrayList<>();
+				for(int p = start; p < end; p++){
+					double similarity = similarity(p);
+					if(similarity >= threshold){
+						hits.add(new Hit(indexes[p], similarity));
+					}
+				}
+				return hits;
+			}
+			PriorityQueue<Hit> best = new PriorityQueue<>(k + 1, WORST_FIRST);
+			for(int p = start; p < end; p++){
+				double similarity = similarity(p);
+				if(best.size() < k || similarity >= best.peek().getSimilarity()){
+					offer(best, new Hit(indexes[p], similarity), k);
+				}
+			}
+			return new ArrayList<>(best);
+		}
+
+		private double similarity(int position){
+			int offset = position * stride;
+			int common = 0, b = 0;
+			for(int i = 0; i < stride; i++){
+				long w = words[offset + i];
+				b += Long.bitCount(w);
+				common += Long.bitCount(w & q[i]);
+			}
+			return (double) common / (a + b - common);
+		}
+
+		private List<Hit> merge(List<Hit> left, List<Hit> right){
+			if(k == Integer.MAX_VALUE){
+				left.addAll(right);
+				return left;
+			}
+			PriorityQueue<Hit> best = new PriorityQueue<>(k + 1, WORST_FIRST);
+			for(Hit hit : left){
+				offer(best, hit, k);
+			}
+			for(Hit hit : right){
+				offer(best, hit, k);
+			}
+			return new ArrayList<>(best);
+		}
+	}
+
+	/**
+	 * A structure that matched a similarity query.
+	 */
+	public static final class Hit{
+		private final int index;
+		private final double similarity;
+
+		Hit(int index, double similarity) {
+			this.index = index;
+			this.similarity = similarity;
+		}
+
+		/**
+		 * The 0-based index of the structure in the list or stream the index was built from.
+		 */
+		public int getIndex(){
+			return index;
+		}
+
+		/**
+		 * The Tanimoto similarity to the query.
+		 */
+		public double getSimilarity(){
+			return similarity;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o){
+				return true;
+			}
+			if(!(o instanceof Hit)){
+				return false;
+			}
+			Hit hit = (Hit) o;
+			return index == hit.index && Double.compare(similarity, hit.similarity) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * index + Double.hashCode(similarity);
+		}
+
+		@Override
+		public String toString() {
+			return "Hit{index=" + index + ", similarity=" + similarity + "}";
+		}
+	}
+}
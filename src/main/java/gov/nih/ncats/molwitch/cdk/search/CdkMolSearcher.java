@@ -30,20 +30,32 @@ import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IPseudoAtom;
+import org.openscience.cdk.isomorphism.Mappings;
 import org.openscience.cdk.isomorphism.Pattern;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
 import org.openscience.cdk.isomorphism.matchers.IQueryBond;
 import org.openscience.cdk.smarts.SmartsPattern;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class CdkMolSearcher implements MolSearcher {
     private final Pattern pattern;
+    /**
+     * The SMARTS this searcher was made from; null if it was made from a Chemical.
+     */
+    private final String smartsQuery;
+    /**
+     * The pattern used for {@link PreparedTarget}s of a SMARTS query, made the first time one is searched.
+     */
+    private volatile Pattern preparedTargetPattern;
 
     public CdkMolSearcher(String smartsQuery){
         try {
-            CdkUtil.parseSmarts(smartsQuery);
             pattern = SmartsPattern.create(smartsQuery, CdkUtil.getChemObjectBuilder());
+            this.smartsQuery = smartsQuery;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -57,9 +69,10 @@ public class CdkMolSearcher implements MolSearcher {
             query = container;
         }
         pattern = Pattern.findSubstructure(query);
+        smartsQuery = null;
     }
     
-    private static boolean hasQueryAtomsOrBonds(IAtomContainer container){
+    static boolean hasQueryAtomsOrBonds(IAtomContainer container){
         for(IAtom a : container.atoms()){
             
             IAtom aa=AtomRef.deref(a);
@@ -76,9 +89,152 @@ public class CdkMolSearcher implements MolSearcher {
         }
         return false;
     }
+    /**
+     * Match the given prepared target.  A SMARTS query matches the prepared copy
+     * of the target with the same query but with the ring and aromaticity preparation
+     * of the target turned off, since the PreparedTarget has already done it.
+     * A query made from a Chemical doesn't prepare its targets, so it matches the
+     * unprepared copy with the same pattern {@link #search(Chemical)} uses.
+     */
+    private Optional<int[]> match(PreparedTarget target){
+        if(smartsQuery ==null){
+            return match(pattern, target.getContainer());
+        }
+        Optional<IAtomContainer> prepared = target.getPreparedContainer();
+        if(!prepared.isPresent()){
+            return Optional.empty();
+        }
+        return match(getPreparedTargetPattern(), prepared.get());
+    }
+
+    private Pattern getPreparedTargetPattern(){
+        Pattern p = preparedTargetPattern;
+        if(p ==null){
+            //no harm if 2 threads get here, they make the same pattern
+            p = SmartsPattern.create(smartsQuery, CdkUtil.getChemObjectBuilder()).setPrepare(false);
+            preparedTargetPattern = p;
+        }
+        return p;
+    }
+
     @Override
     public Optional<int[]> search(Chemical targetChemical) {
-        IAtomContainer target = CdkUtil.toAtomContainer(targetChemical);
+        return match(pattern, CdkUtil.toAtomContainer(targetChemical));
+    }
+
+    /**
+     * Search the given prepared target.  This gives the same result as
+     * {@link #search(Chemical)} on the Chemical the target was prepared from
+     * but doesn't redo the ring and aromaticity perception of the target.
+     *
+     * @param target the target to search; can not be null.
+     * @return the atom mapping of the first match or an empty Optional if there isn't one.
+     */
+    public Optional<int[]> search(PreparedTarget target) {
+        return match(target);
+    }
+
+    /**
+     * Find every match of this query in the given target.
+     * The matches are found lazily as the Stream is consumed so short circuiting
+     * operations like {@code findFirst()} or {@code limit()} stop the search early.
+     *
+     * @param targetChemical the target to search; can not be null.
+     * @param uniqueAtoms if {@code true} only return one mapping for each
+     *                    set of matched target atoms; for example a benzene query
+     *                    matches a benzene ring 12 ways but only once with unique atoms.
+     * @param maxHits the max number of mappings to return; if less than 1 there is no limit.
+     * @return a Stream of atom mappings, each the same as a mapping from {@link #search(Chemical)};
+     * will be empty if there are no matches.
+     */
+    public Stream<int[]> findAll(Chemical targetChemical, boolean uniqueAtoms, int maxHits) {
+        return findAll(pattern, CdkUtil.toAtomContainer(targetChemical), uniqueAtoms, maxHits);
+    }
+
+    /**
+     * Find every match of this query in the given target.
+     * This is the same as {@link #findAll(Chemical, boolean, int)} for the Chemical
+     * the target was prepared from.
+     *
+     * @param target the target to search; can not be null.
+     * @param uniqueAtoms if {@code true} only return one mapping for each set of matched target atoms.
+     * @param maxHits the max number of mappings to return; if less than 1 there is no limit.
+     * @return a Stream of atom mappings; will be empty if there are no matches.
+     */
+    public Stream<int[]> findAll(PreparedTarget target, boolean uniqueAtoms, int maxHits) {
+        if(smartsQuery ==null){
+            return findAll(pattern, target.getContainer(), uniqueAtoms, maxHits);
+        }
+        Optional<IAtomContainer> prepared = target.getPreparedContainer();
+        if(!prepared.isPresent()){
+            return Stream.empty();
+        }
+        return findAll(getPreparedTargetPattern(), prepared.get(), uniqueAtoms, maxHits);
+    }
+
+    /**
+     * Count the number of matches of this query in the given target
+     * without keeping any of the mappings.
+     *
+     * @param targetChemical the target to search; can not be null.
+     * @param uniqueAtoms if {@code true} matches of the same set of target atoms are only counted once;
+     *                    this is usually what is wanted to count functional groups.
+     * @return the number of matches.
+     */
+    public int count(Chemical targetChemical, boolean uniqueAtoms) {
+        return (int) findAll(targetChemical, uniqueAtoms, 0).count();
+    }
+
+    private static Stream<int[]> findAll(Pattern pattern, IAtomContainer target, boolean uniqueAtoms, int maxHits) {
+        Mappings mappings;
+        try {
+            mappings = pattern.matchAll(target);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+        if(uniqueAtoms){
+            mappings = mappings.uniqueAtoms();
+        }
+        if(maxHits > 0){
+            mappings = mappings.limit(maxHits);
+        }
+        //the CDK iterator can hand back the same array for each mapping
+        return mappings.stream().map(int[]::clone);
+    }
+
+    /**
+     * Search each of the given prepared targets with this query.
+     *
+     * @param targets the targets to search; can not be null.
+     * @return a List the same size and order as targets with the result of {@link #search(PreparedTarget)} for each.
+     */
+    public List<Optional<int[]>> searchAll(List<PreparedTarget> targets) {
+        List<Optional<int[]>> results = new ArrayList<>(targets.size());
+        for(PreparedTarget target : targets){
+            results.add(match(target));
+        }
+        return results;
+    }
+
+    /**
+     * Search a single prepared target with each of the given queries, for example
+     * a panel of structural alerts run against one compound.  The target
+     * is only prepared once no matter how many queries there are.
+     *
+     * @param queries the queries to run; can not be null.
+     * @param target the target to search; can not be null.
+     * @return a List the same size and order as queries with the result of {@link #search(PreparedTarget)} for each.
+     */
+    public static List<Optional<int[]>> searchAll(List<CdkMolSearcher> queries, PreparedTarget target) {
+        List<Optional<int[]>> results = new ArrayList<>(queries.size());
+        for(CdkMolSearcher query : queries){
+            results.add(query.search(target));
+        }
+        return results;
+    }
+
+    private static Optional<int[]> match(Pattern pattern, IAtomContainer target) {
         try {
             int[] mapping = pattern.match(target);
             if(mapping.length == 0){
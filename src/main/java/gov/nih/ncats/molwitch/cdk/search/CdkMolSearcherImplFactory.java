@@ -26,6 +26,22 @@ import gov.nih.ncats.molwitch.search.MolSearcher;
 import gov.nih.ncats.molwitch.spi.MolSearcherImplFactory;
 
 public class CdkMolSearcherImplFactory implements MolSearcherImplFactory {
+    /**
+     * The default max number of compiled SMARTS queries kept by {@link #getQueryCache()}.
+     */
+    public static final int DEFAULT_QUERY_CACHE_SIZE = 1_000;
+
+    private static final CompiledQueryCache QUERY_CACHE = new CompiledQueryCache(DEFAULT_QUERY_CACHE_SIZE);
+
+    /**
+     * The cache of compiled SMARTS queries shared by every
+     * CdkMolSearcherImplFactory; use it to check the hit and miss counts.
+     * @return the CompiledQueryCache.
+     */
+    public static CompiledQueryCache getQueryCache() {
+        return QUERY_CACHE;
+    }
+
     @Override
     public MolSearcher create(Chemical query) {
         return new CdkMolSearcher(query);
@@ -33,6 +49,6 @@ public class CdkMolSearcherImplFactory implements MolSearcherImplFactory {
 
     @Override
     public MolSearcher create(String smartsPattern) {
-        return new CdkMolSearcher(smartsPattern);
+        return QUERY_CACHE.get(smartsPattern);
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread safe, least recently used cache of compiled
+ * {@link CdkMolSearcher}s keyed by their SMARTS query.  Compiling a SMARTS
+ * is much more expensive than matching a small query against most targets,
+ * so code that makes a new searcher for the same queries over and over
+ * (like a web service making one per request) can get the already compiled one instead.
+ *
+ * <p>
+ * A CdkMolSearcher doesn't change once it is made so the same instance
+ * can be handed to any number of threads.  Keys are the SMARTS with leading
+ * and trailing whitespace removed.
+ * </p>
+ */
+public final class CompiledQueryCache {
+
+	private final int maxSize;
+	private final Map<String, CdkMolSearcher> map;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Create a new cache.
+	 *
+	 * @param maxSize the max number of queries to keep; must be greater than 0.
+	 * @throws IllegalArgumentException if maxSize is less than 1.
+	 */
+	public CompiledQueryCache(int maxSize) {
+		if(maxSize < 1){
+			throw new IllegalArgumentException("max size must be > 0");
+		}
+		this.maxSize = maxSize;
+		this.map = new LinkedHashMap<String, CdkMolSearcher>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CdkMolSearcher> eldest) {
+				if(size() > CompiledQueryCache.this.maxSize){
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Get the compiled searcher for the given SMARTS, compiling
+	 * and caching it if it isn't already cached.
+	 *
+	 * @param smarts the SMARTS query; can not be null.
+	 * @return the CdkMolSearcher for that query.
+	 * @throws NullPointerException if smarts is null.
+	 * @throws RuntimeException if the SMARTS can not be compiled; nothing is cached in that case.
+	 */
+	public CdkMolSearcher get(String smarts){
+		return get(smarts, CdkMolSearcher::new);
+	}
+
+	CdkMolSearcher get(String smarts, Function<String, CdkMolSearcher> compiler){
+		String key = normalize(smarts);
+		synchronized (map){
+			CdkMolSearcher searcher = map.get(key);
+			if(searcher !=null){
+				hits++;
+				return searcher;
+			}
+			misses++;
+		}
+		//compile outside of the lock so a slow query doesn't block everyone else;
+		//if 2 threads compile the same query the first one in wins
+		CdkMolSearcher compiled = compiler.apply(key);
+		synchronized (map){
+			CdkMolSearcher existing = map.putIfAbsent(key, compiled);
+			return existing ==null ? compiled : existing;
+		}
+	}
+
+	private static String normalize(String smarts){
+		return Objects.requireNonNull(smarts).trim();
+	}
+
+	/**
+	 * The max number of queries this cache holds.
+	 * @return the max size.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * The number of queries currently cached.
+	 * @return the size.
+	 */
+	public int size(){
+		synchronized (map){
+			return map.size();
+		}
+	}
+
+	/**
+	 * The number of calls to {@link #get(String)} that found the query already compiled.
+	 * @return the hit count.
+	 */
+	public long getHitCount(){
+		synchronized (map){
+			return hits;
+		}
+	}
+
+	/**
+	 * The number of calls to {@link #get(String)} that had to compile the query.
+	 * @return the miss count.
+	 */
+	public long getMissCount(){
+		synchronized (map){
+			return misses;
+		}
+	}
+
+	/**
+	 * The number of queries removed to keep the cache under its max size.
+	 * @return the eviction count.
+	 */
+	public long getEvictionCount(){
+		synchronized (map){
+			return evictions;
+		}
+	}
+
+	/**
+	 * The fraction of calls to {@link #get(String)} that were hits.
+	 * @return a number between 0 and 1; 0 if there haven't been any calls.
+	 */
+	public double getHitRate(){
+		synchronized (map){
+			long total = hits + misses;
+			return total ==0 ? 0D : hits / (double) total;
+		}
+	}
+
+	/**
+	 * Remove all the cached queries and reset the counts.
+	 */
+	public void clear(){
+		synchronized (map){
+			map.clear();
+			hits = 0;
+			misses = 0;
+			evictions = 0;
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized (map){
+			return "CompiledQueryCache{size=" + map.size() + ", maxSize=" + maxSize
+					+ ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+		}
+	}
+}
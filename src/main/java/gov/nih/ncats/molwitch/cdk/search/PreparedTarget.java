@@ -0,0 +1,129 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk.search;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.smarts.SmartsPattern;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.CdkUtil;
+
+/**
+ * A search target that has already been made ready for SMARTS matching.
+ * Each SMARTS match normally marks the ring atoms and bonds of the target and
+ * re-applies Daylight aromaticity to it before it starts; a PreparedTarget does that once
+ * so a panel of queries can be run against it with
+ * {@link CdkMolSearcher#search(PreparedTarget)} or {@link CdkMolSearcher#searchAll(java.util.List, PreparedTarget)}
+ * without repeating it.
+ *
+ * <p>
+ * The structure is copied when the target is made, so the given Chemical
+ * is not changed and later changes to it are not seen by the PreparedTarget.
+ * Queries made from a Chemical don't prepare their targets, they match the copy as it is;
+ * the SMARTS preparation is done on a second copy the first time a SMARTS query needs it.
+ * The atom indexes of the copies are the same as the original so the mappings
+ * returned by a search can be used on either.  Once made a PreparedTarget is only
+ * read by the matcher so it can be shared between threads.
+ * </p>
+ */
+public final class PreparedTarget {
+
+	private static final Logger logger = Logger.getLogger("PreparedTarget");
+
+	private final Chemical chemical;
+	private final IAtomContainer container;
+	/**
+	 * The copy with the SMARTS preparation applied, made the first time it's needed;
+	 * empty if the preparation failed.
+	 */
+	private volatile Optional<IAtomContainer> preparedContainer;
+
+	private PreparedTarget(Chemical chemical, IAtomContainer container) {
+		this.chemical = chemical;
+		this.container = container;
+	}
+
+	/**
+	 * Prepare the given Chemical for searching.
+	 *
+	 * @param chemical the target structure; can not be null.
+	 * @return a new PreparedTarget.
+	 * @throws NullPointerException if chemical is null.
+	 */
+	public static PreparedTarget of(Chemical chemical){
+		Objects.requireNonNull(chemical);
+		return new PreparedTarget(chemical, copy(CdkUtil.toAtomContainer(chemical)));
+	}
+
+	private static IAtomContainer copy(IAtomContainer container){
+		try {
+			return container.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The Chemical this target was prepared from.
+	 * @return the Chemical passed to {@link #of(Chemical)}.
+	 */
+	public Chemical getChemical() {
+		return chemical;
+	}
+
+	/**
+	 * The copy of the structure as it was given, for matchers that
+	 * don't prepare their targets.
+	 */
+	IAtomContainer getContainer() {
+		return container;
+	}
+
+	/**
+	 * The copy of the structure with the rings marked and Daylight aromaticity applied,
+	 * for SMARTS matchers with their own preparation turned off.
+	 *
+	 * @return the prepared copy, or empty if it could not be prepared
+	 * (for example atoms without an implicit hydrogen count); a SMARTS match
+	 * of the structure itself fails the same way and finds nothing.
+	 */
+	Optional<IAtomContainer> getPreparedContainer() {
+		Optional<IAtomContainer> prepared = preparedContainer;
+		if(prepared ==null){
+			//no harm if 2 threads get here, they make the same copy
+			IAtomContainer copy = copy(container);
+			try {
+				SmartsPattern.prepare(copy);
+				prepared = Optional.of(copy);
+			}catch(RuntimeException e){
+				logger.fine(String.format("could not prepare target: %s", e.getMessage()));
+				prepared = Optional.empty();
+			}
+			preparedContainer = prepared;
+		}
+		return prepared;
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * NCATS-MOLWITCH-CDK
+ *
+ * Copyright (c) 2025.
+ *
+ * This work is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This work is distributed in the hope that it will be useful, but without any warranty;
+ * without even the implied warranty of merchantability or fitness for a particular purpose.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, write to:
+ *
+ *  the Free Software Foundation, Inc.
+ *  59 Temple Place, Suite 330
+ *  Boston, MA 02111-1307 USA
+ */
+
+package gov.nih.ncats.molwitch.cdk.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.fingerprint.BitSetFingerprint;
+import org.openscience.cdk.fingerprint.IBitFingerprint;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.ringsearch.AllRingsFinder;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.CdkUtil;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.BatchFingerprinter;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.PackedFingerprints;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprint;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinter;
+
+/**
+ * Substructure search over a fixed set of targets.  A path fingerprint
+ * of each target is computed once when the engine is built and a query only runs
+ * the full {@link CdkMolSearcher} match on targets whose fingerprint has every bit of the
+ * query's fingerprint.  The remaining matches run in parallel and the hits are
+ * returned as a lazy {@link Stream}.
+ *
+ * <p>
+ * The screen must never throw out a target the matcher would match, so the fingerprint
+ * only hashes what the matcher always compares: the elements of the atoms along each path.
+ * Bonds are left out.  The matcher compares the structures as they are, where a kekule
+ * bond can still match an aromatic bond of the same order, and the bond symbols
+ * of a path fingerprint can't say that.
+ * Fingerprints of SMARTS and other query structures can have bits their matches don't,
+ * so queries with query atoms or bonds are not screened: every target is matched.
+ * </p>
+ */
+public final class SubstructureSearchEngine {
+
+	private static final Logger logger = Logger.getLogger("SubstructureSearchEngine");
+
+	private final List<Chemical> targets;
+	private final PackedFingerprints fingerprints;
+	private final BatchFingerprinter fingerprinter;
+
+	private SubstructureSearchEngine(List<Chemical> targets, BatchFingerprinter fingerprinter) {
+		this.targets = targets;
+		this.fingerprinter = fingerprinter;
+		this.fingerprints = fingerprinter.computeAll(targets);
+	}
+
+	/**
+	 * Build a new engine over the given targets, fingerprinting them on the common pool.
+	 *
+	 * @param targets the structures to search; the engine keeps its own copy of the list
+	 *                but not of the structures, they should not be changed afterwards.
+	 * @return a new SubstructureSearchEngine.
+	 */
+	public static SubstructureSearchEngine build(List<? extends Chemical> targets){
+		BatchFingerprinter fingerprinter = new BatchFingerprinter(ElementPathFingerprinter::new,
+				org.openscience.cdk.fingerprint.Fingerprinter.DEFAULT_SIZE);
+		return new SubstructureSearchEngine(Collections.unmodifiableList(new ArrayList<>(targets)), fingerprinter);
+	}
+
+	/**
+	 * The number of targets.
+	 */
+	public int size(){
+		return targets.size();
+	}
+
+	/**
+	 * Get a target.
+	 *
+	 * @param index the 0-based index of the target in the list the engine was built from.
+	 */
+	public Chemical getTarget(int index){
+		return targets.get(index);
+	}
+
+	/**
+	 * Find the targets that contain the given SMARTS.  SMARTS queries are not screened
+	 * so every target is matched.
+	 *
+	 * @param smarts the SMARTS query.
+	 * @return a parallel Stream of the hits, in target order.
+	 */
+	public Stream<Match> search(String smarts){
+		return search(new CdkMolSearcher(smarts), i -> true);
+	}
+
+	/**
+	 * Find the targets that contain the given query structure.
+	 *
+	 * @param query the query structure.
+	 * @return a parallel Stream of the hits, in target order.
+	 */
+	public Stream<Match> search(Chemical query){
+		return search(new CdkMolSearcher(query), screen(query));
+	}
+
+	/**
+	 * The indexes of the targets that pass the fingerprint screen for the query
+	 * and would be matched.
+	 *
+	 * @param query the query structure.
+	 * @return the candidate indexes in order.
+	 */
+	public IntStream candidates(Chemical query){
+		return IntStream.range(0, targets.size()).filter(screen(query));
+	}
+
+	private Stream<Match> search(CdkMolSearcher searcher, IntPredicate screen){
+		return IntStream.range(0, targets.size())
+				.parallel()
+				.filter(screen)
+				.mapToObj(i -> {
+					Chemical target = targets.get(i);
+					Optional<int[]> mapping = searcher.search(target);
+					return mapping.isPresent() ? new Match(i, target, mapping.get()) : null;
+				})
+				.filter(Objects::nonNull);
+	}
+
+	private IntPredicate screen(Chemical query){
+		if(CdkMolSearcher.hasQueryAtomsOrBonds(CdkUtil.toAtomContainer(query))){
+			return i -> true;
+		}
+		PackedFingerprints queryFingerprint = fingerprinter.computeAll(Collections.singletonList(query));
+		if(queryFingerprint.isFailed(0)){
+			logger.fine("could not fingerprint query, not screening");
+			return i -> true;
+		}
+		long[] queryWords = queryFingerprint.getWords();
+		long[] words = fingerprints.getWords();
+		int stride = fingerprints.getStride();
+		return i -> {
+			if(fingerprints.isFailed(i)){
+				//can't rule it out
+				return true;
+			}
+			int offset = i * stride;
+			for(int w = 0; w < stride; w++){
+				if((queryWords[w] & ~words[offset + w]) != 0){
+					return false;
+				}
+			}
+			return true;
+		};
+	}
+
+	/**
+	 * The cdk path fingerprint with every bond hashed the same.  The paths are
+	 * encoded straight from the structure as given: none of the atom typing
+	 * or aromaticity perception the cdk fingerprinter normally does first,
+	 * so nothing is changed and no copy is needed.
+	 */
+	private static final class ElementPathFingerprinter extends org.openscience.cdk.fingerprint.Fingerprinter implements Fingerprinter {
+
+		@Override
+		public IBitFingerprint getBitFingerprint(IAtomContainer container, AllRingsFinder ringFinder) throws CDKException {
+			BitSet bits = new BitSet(getSize());
+			encodePaths(container, getSearchDepth(), bits, getSize());
+			return new BitSetFingerprint(bits);
+		}
+
+		@Override
+		protected String getBondSymbol(IBond bond) {
+			return "~";
+		}
+
+		@Override
+		public Fingerprint computeFingerprint(Chemical chemical) {
+			try {
+				IBitFingerprint fingerprint = getBitFingerprint(CdkUtil.toAtomContainer(chemical));
+				return new Fingerprint(fingerprint.asBitSet(), (int) fingerprint.size());
+			} catch (CDKException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * A target that contains the query.
+	 */
+	public static final class Match{
+		private final int index;
+		private final Chemical target;
+		private final int[] mapping;
+
+		Match(int index, Chemical target, int[] mapping) {
+			this.index = index;
+			this.target = target;
+			this.mapping = mapping;
+		}
+
+		/**
+		 * The 0-based index of the target in the list the engine was built from.
+		 */
+		public int getIndex(){
+			return index;
+		}
+
+		public Chemical getTarget(){
+			return target;
+		}
+
+		/**
+		 * The atom mapping of the first match, the same as {@link CdkMolSearcher#search(Chemical)} returns.
+		 */
+		public int[] getMapping(){
+			return mapping;
+		}
+	}
+}
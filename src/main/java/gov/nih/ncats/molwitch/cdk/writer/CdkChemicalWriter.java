@@ -47,6 +47,7 @@ public class CdkChemicalWriter implements ChemicalWriterImpl{
 	@Override
 	public void write(ChemicalImpl impl) throws IOException {
 		CdkChemicalImpl chem =(CdkChemicalImpl)impl;
+		chem.computeDeferredCoordinates();
 		IAtomContainer mol =CdkUtil.getUsableFormOfAtomContainer(chem.getContainer());
 		
 		
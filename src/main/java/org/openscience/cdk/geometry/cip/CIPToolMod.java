@@ -4,12 +4,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
-import gov.nih.ncats.molwitch.Atom;
-import gov.nih.ncats.molwitch.Bond;
 import gov.nih.ncats.molwitch.Chemical;
 import gov.nih.ncats.molwitch.cdk.CdkChemicalImpl;
 import org.openscience.cdk.geometry.cip.CIPTool.CIP_CHIRALITY;
@@ -279,44 +275,6 @@ public class CIPToolMod {
     }
 
     public static int getSizeOfLargestRingSystem(CdkChemicalImpl chemical) {
-        CdkChemicalImpl copy = chemical.deepCopy();
-        int maxRings = 0;
-        List<Bond> bondsToRemove = new ArrayList<>();
-        for(int i = copy.getBondCount()-1; i >=0; i--) {
-            Bond bond = copy.getBond(i);
-            if(!bond.isInRing() ) {
-                //copy.removeBond(i);
-                bondsToRemove.add(bond);
-            }
-        }
-        bondsToRemove.forEach(b-> copy.removeBond(b));
-
-        if( copy.getBondCount() == 0) {
-            //we have removed all non-ring bonds. When we have no bonds, that means no rings
-            return 0;
-        }
-
-        List<Atom> atomsToRemove = new ArrayList<>();
-        for(int i = copy.getAtomCount()-1; i >=0; i--) {
-            Atom atom = copy.getAtom(i);
-            if(atom.getBondCount() == 0) {
-                //System.out.printf("atom %d of symbol %s has no bonds and will be deleted\n", i, atom.getSymbol());
-                //copy.removeAtom(i);
-                atomsToRemove.add(atom);
-            }
-        }
-        atomsToRemove.forEach(a->copy.removeAtom(a));
-
-        Iterator<CdkChemicalImpl> iterator = copy.connectedComponents();
-        int fragmentCount=0;
-        while(iterator.hasNext() ){
-            CdkChemicalImpl fragment = iterator.next();
-            int currentRingTotal= fragment.getBondCount() - fragment.getAtomCount() + 1;
-            fragmentCount++;
-            if( currentRingTotal >maxRings) {
-                maxRings = currentRingTotal;
-            }
-        }
-        return maxRings;
+        return chemical.getLargestRingSystemCircuitRank();
     }
 }
@@ -0,0 +1,96 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.BatchFingerprinter;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.DefaultFingerPrinter;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.EcfpFingerPrinter;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.PackedFingerprints;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprint;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinter;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinters;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TestBatchFingerprinter {
+
+    private static final String[] SMILES = {
+            "CC(=O)Oc1ccccc1C(=O)O", "CN1C=NC2=C1C(=O)N(C(=O)N2C)C", "CC(C)Cc1ccc(cc1)[C@@H](C)C(=O)O",
+            "c1ccc2ccccc2c1", "OC[C@H]1O[C@@H](O)[C@H](O)[C@@H](O)[C@@H]1O", "CCO", "C1CCCCC1", "NCCc1ccc(O)c(O)c1"
+    };
+
+    private static List<Chemical> chemicals(int copies) throws IOException {
+        List<Chemical> list = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            for (String s : SMILES) {
+                list.add(Chemical.parse(s));
+            }
+        }
+        return list;
+    }
+
+    private static void assertSameAsOneAtATime(Fingerprinter single, List<Chemical> chemicals, PackedFingerprints packed) {
+        assertEquals(chemicals.size(), packed.size());
+        assertEquals(0, packed.getFailureCount());
+        long[] words = packed.getWords();
+        for (int i = 0; i < chemicals.size(); i++) {
+            BitSet expected = single.computeFingerprint(chemicals.get(i)).toBitSet();
+            BitSet actual = BitSet.valueOf(java.util.Arrays.copyOfRange(words, i * packed.getStride(), (i + 1) * packed.getStride()));
+            assertEquals("structure " + i, expected, actual);
+            assertEquals(expected.cardinality(), packed.populationCount(i));
+            assertEquals(expected, packed.get(i).toBitSet());
+        }
+    }
+
+    @Test
+    public void pathBasedBatchMatchesSingleFingerprints() throws IOException {
+        Fingerprinters.PathBasedSpecification spec = Fingerprinters.FingerprintSpecification.PATH_BASED.create().setLength(512);
+        BatchFingerprinter batch = new DefaultFingerPrinter().createBatchFingerprinterFor(spec);
+        assertEquals(512, batch.getLength());
+
+        List<Chemical> chemicals = chemicals(40);
+        PackedFingerprints packed = batch.computeAll(chemicals);
+        assertEquals(8, packed.getStride());
+        assertSameAsOneAtATime(Fingerprinters.getFingerprinter(spec), chemicals, packed);
+    }
+
+    @Test
+    public void ecfpStreamMatchesSingleFingerprints() throws IOException {
+        Fingerprinters.FingerprintSpecification spec = Fingerprinters.FingerprintSpecification.ECFP.create();
+        BatchFingerprinter batch = new EcfpFingerPrinter().createBatchFingerprinterFor(spec);
+
+        List<Chemical> chemicals = chemicals(20);
+        PackedFingerprints packed = batch.computeAll(chemicals.stream());
+        assertSameAsOneAtATime(Fingerprinters.getFingerprinter(spec), chemicals, packed);
+    }
+
+    @Test
+    public void failuresAreIsolated() throws IOException {
+        Fingerprinter failsOnEthanol = c -> {
+            if (c.getAtomCount() == 3) {
+                throw new IllegalStateException("boom");
+            }
+            return new Fingerprint(BitSet.valueOf(new long[]{c.getAtomCount()}), 64);
+        };
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            PackedFingerprints packed = new BatchFingerprinter(() -> failsOnEthanol, 64, pool).computeAll(chemicals(10));
+            assertEquals(10, packed.getFailureCount());
+            for (int i = 0; i < packed.size(); i++) {
+                boolean ethanol = i % SMILES.length == 5;
+                assertEquals(ethanol, packed.isFailed(i));
+                if (ethanol) {
+                    assertEquals(0, packed.populationCount(i));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Atom;
+import gov.nih.ncats.molwitch.Bond;
+import gov.nih.ncats.molwitch.Chemical;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestBeginEditCommit {
+
+    private static int[] implicitHs(Chemical c) {
+        int[] hs = new int[c.getAtomCount()];
+        for (int i = 0; i < hs.length; i++) {
+            hs[i] = c.getAtom(i).getImplicitHCount();
+        }
+        return hs;
+    }
+
+    //a chain of alternating C and N with a methyl on every C
+    private static void addChain(Chemical c, int length) {
+        Atom previous = null;
+        for (int i = 0; i < length; i++) {
+            Atom a = c.addAtom(i % 2 == 0 ? "C" : "N");
+            if (previous != null) {
+                c.addBond(previous, a, Bond.BondType.SINGLE);
+            }
+            if (i % 2 == 0) {
+                c.addBond(a, c.addAtom("C"), Bond.BondType.SINGLE);
+            }
+            previous = a;
+        }
+    }
+
+    @Test
+    public void commitGivesSameResultAsIndividualEdits() throws Exception {
+        Chemical individual = new Chemical();
+        addChain(individual, 500);
+
+        Chemical batched = new Chemical();
+        CdkChemicalImpl impl = (CdkChemicalImpl) batched.getImpl();
+        CdkChemicalImpl.BulkEdit edit = impl.beginEdit();
+        assertTrue(impl.isEditing());
+        addChain(batched, 500);
+        edit.commit();
+        assertFalse(impl.isEditing());
+
+        assertEquals(individual.getAtomCount(), batched.getAtomCount());
+        assertArrayEquals(implicitHs(individual), implicitHs(batched));
+        assertEquals(individual.toSmiles(), batched.toSmiles());
+    }
+
+    @Test
+    public void ringClosedDuringEditIsFoundOnCommit() throws Exception {
+        Chemical c = Chemical.parse("CCCCCC.N");
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        CdkChemicalImpl.BulkEdit edit = impl.beginEdit();
+        c.addBond(c.getAtom(0), c.getAtom(5), Bond.BondType.SINGLE);
+        c.addBond(c.getAtom(0), c.getAtom(6), Bond.BondType.SINGLE);
+        edit.commit();
+
+        assertArrayEquals(new int[]{1, 2, 2, 2, 2, 2, 2}, implicitHs(c));
+        assertTrue(c.getAtom(0).isInRing());
+        assertFalse(c.getAtom(6).isInRing());
+    }
+
+    @Test
+    public void onlyOutermostCommitEndsTheEdit() throws Exception {
+        Chemical c = new Chemical();
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+
+        CdkChemicalImpl.BulkEdit outer = impl.beginEdit();
+        CdkChemicalImpl.BulkEdit inner = impl.beginEdit();
+        addChain(c, 3);
+        inner.commit();
+        //committing twice does nothing
+        inner.commit();
+        assertTrue(impl.isEditing());
+        outer.commit();
+        assertFalse(impl.isEditing());
+
+        assertArrayEquals(new int[]{2, 3, 1, 2, 3}, implicitHs(c));
+    }
+
+    @Test
+    public void atomRemovedDuringEditIsSkippedOnCommit() throws Exception {
+        Chemical c = Chemical.parse("CC");
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        try (CdkChemicalImpl.BulkEdit edit = impl.beginEdit()) {
+            Atom o = c.addAtom("O");
+            Bond b = c.addBond(c.getAtom(1), o, Bond.BondType.SINGLE);
+            c.removeBond(b);
+            c.removeAtom(o);
+        }
+        assertEquals(2, c.getAtomCount());
+        assertArrayEquals(new int[]{3, 3}, implicitHs(c));
+    }
+}
@@ -0,0 +1,63 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Atom;
+import gov.nih.ncats.molwitch.Bond;
+import gov.nih.ncats.molwitch.Chemical;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestBondLookup {
+
+    //polyalanine is 5 heavy atoms per residue
+    private static Chemical makePeptide(int residues) throws Exception {
+        StringBuilder smiles = new StringBuilder(residues * 10);
+        for (int i = 0; i < residues; i++) {
+            smiles.append("NC(C)C(=O)");
+        }
+        smiles.append("O");
+        return Chemical.parse(smiles.toString());
+    }
+
+    @Test
+    public void sameBondWrapperReturnedFromEveryAccessor() throws Exception {
+        Chemical c = Chemical.parse("CC(=O)NC1CCCCC1");
+        for (int i = 0; i < c.getBondCount(); i++) {
+            Bond b = c.getBond(i);
+            assertSame(b, c.getBond(i));
+            assertSame(b, c.getBondTable().getBond(b.getAtom1().getAtomIndexInParent(), b.getAtom2().getAtomIndexInParent()));
+            assertTrue(b.getAtom1().getBonds().stream().anyMatch(ab -> ab == b));
+            assertTrue(b.getAtom2().getBonds().stream().anyMatch(ab -> ab == b));
+        }
+    }
+
+    @Test
+    public void removedAndReaddedBondKeepsWrapper() throws Exception {
+        Chemical c = Chemical.parse("CCO");
+        Bond b = c.getBond(1);
+        c.removeBond(b);
+        assertEquals(1, c.getBondCount());
+        Bond readded = c.addBond(b);
+        assertSame(b, readded);
+    }
+
+    @Test
+    public void bondLookupOn5000AtomPeptide() throws Exception {
+        Chemical peptide = makePeptide(1000);
+        assertTrue(peptide.getAtomCount() > 5000);
+
+        List<Bond> bonds = new ArrayList<>(peptide.getBondCount());
+        peptide.getBonds().forEach(bonds::add);
+        int neighborBonds = 0;
+        for (Atom a : peptide.getAtoms()) {
+            neighborBonds += a.getBonds().size();
+        }
+        for (int i = 0; i < peptide.getBondCount(); i++) {
+            assertSame(bonds.get(i), peptide.getBond(i));
+        }
+        assertEquals(2 * peptide.getBondCount(), neighborBonds);
+    }
+}
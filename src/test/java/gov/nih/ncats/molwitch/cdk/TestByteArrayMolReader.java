@@ -0,0 +1,129 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.ChemicalSource;
+import gov.nih.ncats.molwitch.spi.ChemicalImpl;
+import gov.nih.ncats.molwitch.spi.ChemicalImplReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestByteArrayMolReader {
+
+    private final CdkChemical2FactoryImpl factory = new CdkChemical2FactoryImpl();
+
+    private static String sdf(String... smiles) throws IOException {
+        StringBuilder sdf = new StringBuilder();
+        for (int i = 0; i < smiles.length; i++) {
+            Chemical c = Chemical.parse(smiles[i]);
+            c.setName("mol" + i);
+            c.setProperty("INDEX", Integer.toString(i));
+            sdf.append(c.toSd()).append("\n");
+        }
+        return sdf.toString();
+    }
+
+    private static List<ChemicalImpl> readAll(ChemicalImplReader reader) throws IOException {
+        List<ChemicalImpl> list = new ArrayList<>();
+        try (ChemicalImplReader r = reader) {
+            ChemicalImpl impl;
+            while ((impl = r.read()) != null) {
+                list.add(impl);
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void asciiSdfSliceMatchesStreamReader() throws Exception {
+        String sdf = sdf("CC(=O)Oc1ccccc1C(=O)O", "C[C@@H](N)C(=O)O", "c1ccc2ccccc2c1");
+        byte[] payload = ("garbage" + sdf + "more garbage").getBytes(StandardCharsets.US_ASCII);
+        int start = "garbage".length();
+        int length = sdf.length();
+
+        ChemicalImplReader reader = factory.create(payload, start, length);
+        assertTrue(reader instanceof ByteArrayMolReader);
+        List<ChemicalImpl> fromBytes = readAll(reader);
+        List<ChemicalImpl> fromStream = readAll(factory.create(
+                new ByteArrayInputStream(sdf.getBytes(StandardCharsets.US_ASCII))));
+
+        assertEquals(3, fromBytes.size());
+        assertEquals(fromStream.size(), fromBytes.size());
+        for (int i = 0; i < fromBytes.size(); i++) {
+            Chemical actual = new Chemical(fromBytes.get(i));
+            Chemical expected = new Chemical(fromStream.get(i));
+            assertEquals(expected.toSmiles(), actual.toSmiles());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(Integer.toString(i), actual.getProperty("INDEX"));
+
+            ChemicalSource source = fromBytes.get(i).getSource();
+            assertFalse(((LazyChemicalSource) source).isMaterialized());
+            ChemicalSource expectedSource = fromStream.get(i).getSource();
+            assertEquals(expectedSource.getType(), source.getType());
+            assertEquals(expectedSource.getData(), source.getData());
+            assertEquals(expectedSource.getProperties(), source.getProperties());
+        }
+    }
+
+    @Test
+    public void recordsWithoutPropertiesMatchStreamReader() throws Exception {
+        StringBuilder sdf = new StringBuilder();
+        for (String smiles : new String[]{"CCO", "c1ccccc1", "CC(=O)O"}) {
+            sdf.append(Chemical.parse(smiles).toSd()).append("\n");
+        }
+        byte[] bytes = sdf.toString().getBytes(StandardCharsets.US_ASCII);
+
+        List<ChemicalImpl> fromBytes = readAll(factory.create(bytes, 0, bytes.length));
+        List<ChemicalImpl> fromStream = readAll(factory.create(new ByteArrayInputStream(bytes)));
+        assertEquals(3, fromBytes.size());
+        assertEquals(fromStream.size(), fromBytes.size());
+        for (int i = 0; i < fromBytes.size(); i++) {
+            assertEquals(fromStream.get(i).getSource().getData(), fromBytes.get(i).getSource().getData());
+        }
+    }
+
+    @Test
+    public void sourceDoesNotChangeWhenCallerReusesTheArray() throws Exception {
+        String sdf = sdf("CCO", "c1ccccc1");
+        byte[] payload = sdf.getBytes(StandardCharsets.US_ASCII);
+        List<ChemicalImpl> read = readAll(factory.create(payload, 0, payload.length));
+        String expected = readAll(factory.create(payload, 0, payload.length)).get(0).getSource().getData();
+
+        Arrays.fill(payload, (byte) 'X');
+        assertEquals(expected, read.get(0).getSource().getData());
+    }
+
+    @Test
+    public void singleMolIsMolType() throws Exception {
+        String mol = Chemical.parse("CCO").toMol();
+        byte[] bytes = mol.getBytes(StandardCharsets.US_ASCII);
+        List<ChemicalImpl> list = readAll(factory.create("mol", bytes, 0, bytes.length));
+        assertEquals(1, list.size());
+        assertEquals(ChemicalSource.Type.MOL, list.get(0).getSource().getType());
+        assertEquals(3, list.get(0).getAtomCount());
+    }
+
+    @Test
+    public void propertiesAddedBeforeMaterializingAreKept() throws Exception {
+        byte[] bytes = sdf("CCO").getBytes(StandardCharsets.US_ASCII);
+        ChemicalSource source = readAll(factory.create(bytes, 0, bytes.length)).get(0).getSource();
+        source.getProperties().put("queue", "incoming");
+        assertFalse(((LazyChemicalSource) source).isMaterialized());
+
+        assertEquals("incoming", source.getProperties().get("queue"));
+        assertTrue(((LazyChemicalSource) source).isMaterialized());
+    }
+
+    @Test
+    public void nonAsciiFallsBackToDecodingReader() throws Exception {
+        byte[] bytes = sdf("CCO").replace("mol0", "möl0").getBytes(StandardCharsets.UTF_8);
+        assertFalse(factory.create(bytes, 0, bytes.length) instanceof ByteArrayMolReader);
+    }
+}
@@ -0,0 +1,107 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.search.CdkMolSearcher;
+import gov.nih.ncats.molwitch.cdk.search.CdkMolSearcherImplFactory;
+import gov.nih.ncats.molwitch.cdk.search.CompiledQueryCache;
+import gov.nih.ncats.molwitch.search.MolSearcher;
+import gov.nih.ncats.molwitch.search.MolSearcherFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class TestCompiledQueryCache {
+
+    @Test
+    public void sameQueryIsOnlyCompiledOnce() {
+        CompiledQueryCache cache = new CompiledQueryCache(10);
+        CdkMolSearcher first = cache.get("c1ccccc1O");
+        CdkMolSearcher second = cache.get("  c1ccccc1O ");
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+        assertEquals(0.5D, cache.getHitRate(), 0D);
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        CompiledQueryCache cache = new CompiledQueryCache(2);
+        CdkMolSearcher a = cache.get("CO");
+        CdkMolSearcher b = cache.get("CN");
+        //touch a so b is the least recently used
+        assertSame(a, cache.get("CO"));
+        cache.get("CS");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        assertSame(a, cache.get("CO"));
+        assertNotSame(b, cache.get("CN"));
+    }
+
+    @Test
+    public void badSmartsIsNotCached() {
+        CompiledQueryCache cache = new CompiledQueryCache(2);
+        try {
+            cache.get("C(((");
+            fail("should not compile");
+        } catch (RuntimeException expected) {
+        }
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void clearResetsCounts() {
+        CompiledQueryCache cache = new CompiledQueryCache(2);
+        cache.get("CO");
+        cache.get("CO");
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void factoryUsesSharedCache() throws Exception {
+        CompiledQueryCache cache = CdkMolSearcherImplFactory.getQueryCache();
+        String smarts = "[#7,#8]c1ccccc1[Cl]";
+        long hits = cache.getHitCount();
+        MolSearcher first = MolSearcherFactory.create(smarts).get();
+        MolSearcher second = MolSearcherFactory.create(smarts).get();
+        assertSame(first, second);
+        assertTrue(cache.getHitCount() > hits);
+
+        Optional<int[]> hit = second.search(Chemical.parse("Nc1ccccc1Cl"));
+        assertTrue(hit.isPresent());
+    }
+
+    @Test
+    public void cachedSearcherCanBeSharedBetweenThreads() throws Exception {
+        CompiledQueryCache cache = new CompiledQueryCache(10);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String target = i % 2 == 0 ? "CC(=O)Nc1ccccc1" : "CCCCO";
+                boolean expected = i % 2 == 0;
+                futures.add(executor.submit(() ->
+                        cache.get("C(=O)N").search(Chemical.parse(target)).isPresent() == expected));
+            }
+            for (Future<Boolean> f : futures) {
+                assertTrue(f.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, cache.size());
+        assertEquals(200, cache.getHitCount() + cache.getMissCount());
+    }
+}
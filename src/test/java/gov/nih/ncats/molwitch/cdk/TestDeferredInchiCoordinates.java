@@ -0,0 +1,132 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.Chirality;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TestDeferredInchiCoordinates {
+
+    private static final String ASPIRIN = "InChI=1S/C9H8O4/c1-6(10)13-8-5-3-2-4-7(8)9(11)12/h2-5H,1H3,(H,11,12)";
+    private static final String ALANINE = "InChI=1S/C3H7NO2/c1-2(4)3(5)6/h2H,4H2,1H3,(H,5,6)/t2-/m0/s1";
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private final CdkChemicalInchiImplFactory factory = new CdkChemicalInchiImplFactory();
+
+    private static CdkChemicalImpl impl(Chemical c) {
+        return (CdkChemicalImpl) c.getImpl();
+    }
+
+    @Test
+    public void layoutWaitsUntilCoordinatesAreNeeded() throws Exception {
+        Chemical lazy = factory.parseInchi(ASPIRIN, true);
+        assertTrue(impl(lazy).hasDeferredCoordinates());
+
+        Chemical eager = factory.parseInchi(ASPIRIN, false);
+        assertFalse(impl(eager).hasDeferredCoordinates());
+
+        assertEquals(eager.getFormula(), lazy.getFormula());
+        assertEquals(eager.getMass(), lazy.getMass(), 0.0001D);
+        assertEquals(eager.toSmiles(), lazy.toSmiles());
+        assertTrue(impl(lazy).hasDeferredCoordinates());
+
+        assertTrue(lazy.hasCoordinates());
+        assertFalse(impl(lazy).hasDeferredCoordinates());
+        for (int i = 0; i < eager.getAtomCount(); i++) {
+            assertEquals(eager.getAtom(i).getAtomCoordinates(), lazy.getAtom(i).getAtomCoordinates());
+        }
+    }
+
+    @Test
+    public void readingAnAtomsCoordinatesDoesTheLayout() throws Exception {
+        Chemical lazy = factory.parseInchi(ALANINE, true);
+        assertNotNull(lazy.getAtom(0).getAtomCoordinates());
+        assertTrue(lazy.has2DCoordinates());
+    }
+
+    @Test
+    public void writingAMolDoesTheLayout() throws Exception {
+        Chemical lazy = factory.parseInchi(ALANINE, true);
+        Chemical eager = factory.parseInchi(ALANINE, false);
+        assertEquals(eager.toMol(), lazy.toMol());
+    }
+
+    @Test
+    public void stereoIsKeptBeforeTheLayout() throws Exception {
+        Chemical lazy = factory.parseInchi(ALANINE, true);
+        Chemical eager = factory.parseInchi(ALANINE, false);
+        assertEquals(Chirality.S, eager.getAtom(1).getChirality());
+
+        //before anything asks for the coordinates
+        assertEquals(eager.getAtom(1).getChirality(), lazy.getAtom(1).getChirality());
+        assertTrue(impl(lazy).hasDeferredCoordinates());
+        assertEquals(ALANINE, lazy.toInchi().getInchi());
+
+        //and after the layout
+        assertTrue(lazy.hasCoordinates());
+        assertEquals(Chirality.S, lazy.getAtom(1).getChirality());
+        assertEquals(eager.toInchi().getInchi(), lazy.toInchi().getInchi());
+    }
+
+    @Test
+    public void copyKeepsDeferredLayout() throws Exception {
+        Chemical lazy = factory.parseInchi(ASPIRIN, true);
+        Chemical copy = lazy.copy();
+        assertTrue(impl(copy).hasDeferredCoordinates());
+        assertTrue(copy.hasCoordinates());
+        assertTrue(impl(lazy).hasDeferredCoordinates());
+    }
+
+    @Test
+    public void bulkParse() throws Exception {
+        String file = ASPIRIN + "\taspirin\n"
+                + "AuxInfo=1/1/N:1,10,11\n"
+                + "\n"
+                + ALANINE + "\n";
+        List<Chemical> list = factory.parseInchis(new BufferedReader(new StringReader(file)), true)
+                .collect(Collectors.toList());
+        assertEquals(2, list.size());
+        assertEquals("aspirin", list.get(0).getName());
+        assertEquals("C9H8O4", list.get(0).getFormula());
+        assertEquals("C3H7NO2", list.get(1).getFormula());
+        assertTrue(impl(list.get(1)).hasDeferredCoordinates());
+    }
+
+    @Test
+    public void bulkParseFile() throws Exception {
+        File f = tmpDir.newFile("test.inchi");
+        Files.write(f.toPath(), (ASPIRIN + " one\n" + ALANINE + " two\n").getBytes(StandardCharsets.UTF_8));
+        try (Stream<Chemical> stream = factory.parseInchis(f, false)) {
+            List<String> names = stream.map(Chemical::getName).collect(Collectors.toList());
+            assertEquals(2, names.size());
+            assertEquals("one", names.get(0));
+            assertEquals("two", names.get(1));
+        }
+    }
+
+    @Test
+    public void badInchiReportsLine() throws Exception {
+        String file = ASPIRIN + "\nInChI=1S/garbage\n";
+        try {
+            factory.parseInchis(new BufferedReader(new StringReader(file)), true).count();
+            fail("should throw");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("line 2:"));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.search.CdkMolSearcher;
+import gov.nih.ncats.molwitch.cdk.search.PreparedTarget;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TestFindAllMatches {
+
+    @Test
+    public void countCarboxylicAcids() throws Exception {
+        Chemical citricAcid = Chemical.parse("OC(=O)CC(O)(C(=O)O)CC(=O)O");
+        CdkMolSearcher acid = new CdkMolSearcher("C(=O)[OX2H1]");
+        assertEquals(3, acid.count(citricAcid, true));
+        assertEquals(0, acid.count(Chemical.parse("CCO"), true));
+    }
+
+    @Test
+    public void symmetricQueryUniqueAtoms() throws Exception {
+        CdkMolSearcher benzene = new CdkMolSearcher("c1ccccc1");
+        Chemical target = Chemical.parse("c1ccccc1");
+        assertEquals(12, benzene.findAll(target, false, 0).count());
+        assertEquals(1, benzene.findAll(target, true, 0).count());
+        assertEquals(2, benzene.count(Chemical.parse("c1ccccc1-c1ccccc1"), true));
+    }
+
+    @Test
+    public void maxHits() throws Exception {
+        CdkMolSearcher benzene = new CdkMolSearcher("c1ccccc1");
+        List<int[]> hits = benzene.findAll(Chemical.parse("c1ccccc1"), false, 5).collect(Collectors.toList());
+        assertEquals(5, hits.size());
+        Set<List<Integer>> distinct = new HashSet<>();
+        for (int[] hit : hits) {
+            distinct.add(Arrays.stream(hit).boxed().collect(Collectors.toList()));
+        }
+        assertEquals(5, distinct.size());
+    }
+
+    @Test
+    public void firstMatchIsSameAsSearch() throws Exception {
+        CdkMolSearcher searcher = new CdkMolSearcher("[#7,#8]c1ccccc1");
+        Chemical target = Chemical.parse("CCCCCNc1ccccc1");
+        int[] expected = searcher.search(Chemical.parse("CCCCCNc1ccccc1")).get();
+        assertArrayEquals(expected, searcher.findAll(target, false, 0).findFirst().get());
+        assertArrayEquals(expected, searcher.findAll(PreparedTarget.of(target), false, 0).findFirst().get());
+    }
+
+    @Test
+    public void onlyPullsWhatIsConsumed() throws Exception {
+        //every 6 atom path in a fullerene, far too many to want them all
+        CdkMolSearcher searcher = new CdkMolSearcher("*~*~*~*~*~*");
+        Chemical c60 = Chemical.parse("c12c3c4c5c1c1c6c7c2c2c8c3c3c9c4c4c%10c5c5c1c1c6c6c%11c7c2c2c7c8c3c3c8c9c4c4c9c%10c5c5c1c1c6c6c%11c2c2c7c3c3c8c4c4c9c5c1c1c6c2c3c41");
+        AtomicInteger pulled = new AtomicInteger();
+        assertEquals(3, searcher.findAll(c60, false, 0).peek(m -> pulled.incrementAndGet()).limit(3).count());
+        assertEquals(3, pulled.get());
+    }
+
+    @Test
+    public void noMatchIsEmpty() throws Exception {
+        CdkMolSearcher searcher = new CdkMolSearcher("[Cl]");
+        assertFalse(searcher.findAll(Chemical.parse("CCO"), true, 10).findAny().isPresent());
+    }
+}
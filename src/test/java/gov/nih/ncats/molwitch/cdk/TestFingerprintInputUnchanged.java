@@ -0,0 +1,47 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprint;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinter;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinters;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class TestFingerprintInputUnchanged {
+
+    private final Fingerprinter fingerprinter = Fingerprinters.getFingerprinter(
+            Fingerprinters.FingerprintSpecification.PATH_BASED.create().setLength(1024));
+
+    private static String molWithoutHeader(Chemical c) throws Exception {
+        String mol = c.toMol();
+        return mol.substring(mol.indexOf("V2000"));
+    }
+
+    @Test
+    public void kekuleInputIsNotAromatizedByFingerprinting() throws Exception {
+        Chemical c = Chemical.parseMol(Chemical.parse("CC(=O)Oc1ccccc1C(=O)O").toMol());
+        String before = molWithoutHeader(c);
+
+        Fingerprint first = fingerprinter.computeFingerprint(c);
+        assertEquals(before, molWithoutHeader(c));
+        assertEquals(first.toBitSet(), fingerprinter.computeFingerprint(c).toBitSet());
+    }
+
+    @Test
+    public void queryInputKeepsItsQueryBonds() throws Exception {
+        Chemical query = Chemical.createFromSmarts("c1ccccc1~[#6]");
+        int bonds = query.getBondCount();
+
+        Fingerprint queryFp = fingerprinter.computeFingerprint(query);
+        assertEquals(bonds, query.getBondCount());
+
+        //whatever is left of the query still screens a real match
+        BitSet target = fingerprinter.computeFingerprint(Chemical.parse("Cc1ccccc1")).toBitSet();
+        BitSet common = queryFp.toBitSet();
+        common.and(target);
+        assertEquals(queryFp.toBitSet(), common);
+    }
+}
@@ -0,0 +1,101 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Bond;
+import gov.nih.ncats.molwitch.BondTable;
+import gov.nih.ncats.molwitch.Chemical;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestGraphView {
+
+    @Test
+    public void bondTableReusesGraphUntilStructureChanges() throws Exception {
+        Chemical c = Chemical.parse("CC(C)C1CCCCC1");
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        CdkChemicalImpl.CdkBondTable table = impl.getBondTable();
+        assertSame(table.getAdjacencyList(), impl.getBondTable().getAdjacencyList());
+        assertEquals(3, table.getDegree(1));
+        assertEquals(1, table.getDegree(0));
+
+        c.addBond(c.getAtom(0), c.getAtom(2), Bond.BondType.SINGLE);
+        CdkChemicalImpl.CdkBondTable after = impl.getBondTable();
+        assertNotSame(table.getAdjacencyList(), after.getAdjacencyList());
+        assertTrue(after.bondExists(0, 2));
+        assertEquals(2, after.getDegree(0));
+        //the old table still describes the old version
+        assertFalse(table.bondExists(0, 2));
+    }
+
+    @Test
+    public void bondLookupMatchesChemical() throws Exception {
+        Chemical c = Chemical.parse("c1ccccc1C(=O)O");
+        BondTable table = c.getBondTable();
+        for (int i = 0; i < c.getBondCount(); i++) {
+            Bond b = c.getBond(i);
+            int a1 = b.getAtom1().getAtomIndexInParent();
+            int a2 = b.getAtom2().getAtomIndexInParent();
+            assertSame(b, table.getBond(a1, a2));
+            assertSame(b, table.getBond(a2, a1));
+        }
+        assertFalse(table.bondExists(0, 7));
+    }
+
+    @Test
+    public void existingBondsVisitsSamePairsInSameOrderAsDefault() throws Exception {
+        Chemical c = Chemical.parse("CC(C)(N)C1CC(O)CCC1C=O");
+        BondTable table = c.getBondTable();
+        //only the abstract methods so existingBonds uses the interface default
+        BondTable allPairs = new BondTable() {
+            @Override
+            public boolean bondExists(int i, int j) {
+                return table.bondExists(i, j);
+            }
+
+            @Override
+            public Bond getBond(int i, int j) {
+                return table.getBond(i, j);
+            }
+
+            @Override
+            public int getAtomCount() {
+                return table.getAtomCount();
+            }
+        };
+        List<String> expected = new ArrayList<>();
+        allPairs.existingBonds((int i, int j) -> expected.add(i + "-" + j));
+        List<String> actual = new ArrayList<>();
+        table.existingBonds((int i, int j) -> actual.add(i + "-" + j));
+        assertEquals(2 * c.getBondCount(), actual.size());
+        assertEquals(expected, actual);
+
+        List<Bond> bonds = new ArrayList<>();
+        table.existingBonds((int i, int j, Bond b) -> bonds.add(b));
+        assertEquals(actual.size(), bonds.size());
+        assertFalse(bonds.contains(null));
+    }
+
+    @Test
+    public void sortedRowsOnlyCopyTheRowsThatAreOutOfOrder() throws Exception {
+        Chemical c = Chemical.parse("CC(C)(N)C1CC(O)CCC1C=O");
+        GraphView view = ((CdkChemicalImpl) c.getImpl()).graphViewSupplier.get();
+        int[][] adj = view.getAdjacencyList();
+        int[][] sorted = view.getSortedAdjacencyList();
+        boolean sawUnsorted = false;
+        for (int i = 0; i < adj.length; i++) {
+            int[] expected = adj[i].clone();
+            Arrays.sort(expected);
+            assertArrayEquals(expected, sorted[i]);
+            if (Arrays.equals(expected, adj[i])) {
+                assertSame(adj[i], sorted[i]);
+            } else {
+                sawUnsorted = true;
+            }
+        }
+        assertTrue(sawUnsorted);
+    }
+}
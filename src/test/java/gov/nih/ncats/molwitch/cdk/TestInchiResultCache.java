@@ -0,0 +1,89 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.inchi.InChiResult;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestInchiResultCache {
+
+    private final CdkChemicalInchiImplFactory factory = new CdkChemicalInchiImplFactory();
+    private final InchiResultCache cache = CdkChemicalInchiImplFactory.getResultCache();
+
+    @Test
+    public void sameStructureIsAHit() throws Exception {
+        String mol = Chemical.parse("C[C@@H](N)C(=O)O").toMol();
+        InChiResult first = factory.asStdInchi(Chemical.parseMol(mol), true);
+        long hits = cache.getHitCount();
+        InChiResult second = factory.asStdInchi(Chemical.parseMol(mol), true);
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void cachedResultIsSameAsComputed() throws Exception {
+        String[] smiles = {"c1ccccc1C(=O)O", "C/C=C/C", "C/C=C\\C", "[NH4+].[Cl-]", "[13CH4]", "C[C@H](O)CC", "C[C@@H](O)CC"};
+        for (String s : smiles) {
+            InChiResult cached = factory.asStdInchi(Chemical.parse(s), true);
+            cached = factory.asStdInchi(Chemical.parse(s), true);
+            cache.clear();
+            InChiResult computed = factory.asStdInchi(Chemical.parse(s), true);
+            assertEquals(s, computed, cached);
+        }
+    }
+
+    @Test
+    public void chemicalIsKekulizedOnAHitToo() throws Exception {
+        Chemical miss = Chemical.parse("c1ccccc1O");
+        factory.asStdInchi(miss, true);
+        Chemical hit = Chemical.parse("c1ccccc1O");
+        assertTrue(hit.getBond(0).isAromatic());
+        long hits = cache.getHitCount();
+        factory.asStdInchi(hit, true);
+        assertEquals(hits + 1, cache.getHitCount());
+
+        assertEquals(miss.toMol(), hit.toMol());
+        for (int i = 0; i < hit.getBondCount(); i++) {
+            assertFalse(hit.getBond(i).isAromatic());
+        }
+    }
+
+    @Test
+    public void stereoisomersAreNotMixedUp() throws Exception {
+        InChiResult r = factory.asStdInchi(Chemical.parse("C[C@H](O)CC"), true);
+        InChiResult s = factory.asStdInchi(Chemical.parse("C[C@@H](O)CC"), true);
+        InChiResult none = factory.asStdInchi(Chemical.parse("CC(O)CC"), true);
+        assertNotEquals(r.getKey(), s.getKey());
+        assertNotEquals(r.getKey(), none.getKey());
+        assertNotEquals(s.getKey(), none.getKey());
+    }
+
+    @Test
+    public void mutatingTheChemicalChangesTheResult() throws Exception {
+        Chemical c = Chemical.parse("CC(=O)O");
+        InChiResult acid = factory.asStdInchi(c, true);
+        c.getAtom(3).setCharge(-1);
+        c.getAtom(3).setImplicitHCount(0);
+        InChiResult anion = factory.asStdInchi(c, true);
+        assertNotEquals(acid.getInchi(), anion.getInchi());
+        assertEquals(factory.asStdInchi(Chemical.parse("CC(=O)[O-]"), true).getInchi(), anion.getInchi());
+    }
+
+    @Test
+    public void differentAtomOrderHasItsOwnAuxInfo() throws Exception {
+        InChiResult a = factory.asStdInchi(Chemical.parse("OCC"), true);
+        InChiResult b = factory.asStdInchi(Chemical.parse("CCO"), true);
+        assertEquals(a.getKey(), b.getKey());
+        assertNotEquals(a.getAuxInfo(), b.getAuxInfo());
+    }
+
+    @Test
+    public void kekulizedFormOfTheSameChemicalIsAHit() throws Exception {
+        Chemical c = Chemical.parse("c1ccccc1O");
+        factory.asStdInchi(c, true);
+        long misses = cache.getMissCount();
+        factory.asStdInchi(c, true);
+        assertEquals(misses, cache.getMissCount());
+    }
+}
@@ -0,0 +1,156 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.inchi.InChiResult;
+import org.junit.Test;
+import org.openscience.cdk.exception.CDKException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestInchiWorkerPool {
+
+    private static List<Chemical> parse(String... smiles) throws IOException {
+        List<Chemical> list = new ArrayList<>();
+        for (String s : smiles) {
+            Chemical c = Chemical.parse(s);
+            c.setName(s);
+            list.add(c);
+        }
+        return list;
+    }
+
+    @Test
+    public void batchMatchesOneAtATime() throws Exception {
+        CdkChemicalInchiImplFactory factory = new CdkChemicalInchiImplFactory();
+        String[] smiles = {"CCO", "c1ccccc1", "CC(=O)Oc1ccccc1C(=O)O", "C[C@H](N)C(=O)O", "[NH4+].[Cl-]"};
+        List<InChiResult> batch = factory.asStdInchi(parse(smiles));
+        assertEquals(smiles.length, batch.size());
+        for (int i = 0; i < smiles.length; i++) {
+            InChiResult expected = factory.asStdInchi(Chemical.parse(smiles[i]), true);
+            assertEquals(smiles[i], expected.getKey(), batch.get(i).getKey());
+        }
+    }
+
+    @Test
+    public void failuresAndTimeoutsOnlyAffectTheirOwnStructure() throws Exception {
+        CdkChemicalInchiImplFactory factory = new CdkChemicalInchiImplFactory() {
+            @Override
+            InChiResult computeStdInchi(Chemical chemical) throws CDKException, IOException {
+                if ("CCCl".equals(chemical.getName())) {
+                    throw new IOException("bad record");
+                }
+                if ("CCBr".equals(chemical.getName())) {
+                    try {
+                        Thread.sleep(60_000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.computeStdInchi(chemical);
+            }
+        };
+        try (InchiWorkerPool pool = new InchiWorkerPool(factory, 2, 2)) {
+            //long enough for the normal structures on a slow machine, only the sleeping one goes over
+            List<InChiResult> results = pool.asStdInchi(parse("CCO", "CCCl", "CCN", "CCBr", "CCS", "CCF"), 5, TimeUnit.SECONDS);
+            assertEquals(6, results.size());
+            assertTrue(results.get(1).getKey().isEmpty());
+            assertTrue(results.get(1).getMessage(), results.get(1).getMessage().contains("bad record"));
+            assertTrue(results.get(3).getKey().isEmpty());
+            assertTrue(results.get(3).getMessage(), results.get(3).getMessage().contains("timed out"));
+            for (int i : new int[]{0, 2, 4, 5}) {
+                assertFalse(results.get(i).getKey().isEmpty());
+            }
+            assertEquals(1, pool.getFailureCount());
+            assertEquals(1, pool.getTimeoutCount());
+            assertTrue(pool.getSuccessCount() >= 4);
+        }
+    }
+
+    @Test
+    public void timedOutComputationKeepsItsPlaceUntilItFinishes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CdkChemicalInchiImplFactory factory = new CdkChemicalInchiImplFactory() {
+            @Override
+            InChiResult computeStdInchi(Chemical chemical) throws CDKException, IOException {
+                if ("CCBr".equals(chemical.getName())) {
+                    //like a native call, doesn't stop when interrupted
+                    boolean interrupted = false;
+                    while (true) {
+                        try {
+                            release.await();
+                            break;
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.computeStdInchi(chemical);
+            }
+        };
+        try (InchiWorkerPool pool = new InchiWorkerPool(factory, 1, 0)) {
+            InChiResult stuck = pool.asStdInchi(parse("CCBr"), 100, TimeUnit.MILLISECONDS).get(0);
+            assertTrue(stuck.getMessage(), stuck.getMessage().contains("timed out after"));
+
+            //the only worker is still busy so there is no room to queue another one
+            InChiResult waiting = pool.asStdInchi(parse("CCO"), 100, TimeUnit.MILLISECONDS).get(0);
+            assertTrue(waiting.getMessage(), waiting.getMessage().contains("waiting for a worker"));
+            assertEquals(0, pool.getQueueDepth());
+
+            release.countDown();
+            InChiResult after = pool.asStdInchi(parse("CCO"), 10, TimeUnit.SECONDS).get(0);
+            assertFalse(after.getKey().isEmpty());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void sameChemicalIsOnlyComputedOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CdkChemicalInchiImplFactory factory = new CdkChemicalInchiImplFactory() {
+            @Override
+            InChiResult computeStdInchi(Chemical chemical) throws CDKException, IOException {
+                calls.incrementAndGet();
+                return super.computeStdInchi(chemical);
+            }
+        };
+        Chemical c = Chemical.parse("CCO");
+        try (InchiWorkerPool pool = new InchiWorkerPool(factory, 1, 0)) {
+            List<InChiResult> results = pool.asStdInchi(Arrays.asList(c, c, c), 10, TimeUnit.SECONDS);
+            assertEquals(3, results.size());
+            assertEquals(1, calls.get());
+            assertEquals(results.get(0), results.get(2));
+            assertEquals(0, pool.getQueueDepth());
+            assertTrue(pool.getMaxComputeTime(TimeUnit.NANOSECONDS) > 0);
+        }
+    }
+
+    @Test
+    public void largerBatchThanQueue() throws Exception {
+        CdkChemicalInchiImplFactory factory = new CdkChemicalInchiImplFactory();
+        List<Chemical> chemicals = new ArrayList<>();
+        StringBuilder smiles = new StringBuilder("C");
+        for (int i = 0; i < 40; i++) {
+            smiles.append('C');
+            chemicals.add(Chemical.parse(smiles.toString()));
+        }
+        try (InchiWorkerPool pool = new InchiWorkerPool(factory, 2, 1)) {
+            List<InChiResult> results = pool.asStdInchi(chemicals, 10, TimeUnit.SECONDS);
+            for (InChiResult r : results) {
+                assertFalse(r.getKey().isEmpty());
+            }
+            assertEquals(40, pool.getSuccessCount());
+        }
+    }
+}
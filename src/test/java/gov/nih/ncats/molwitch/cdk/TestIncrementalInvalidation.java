@@ -0,0 +1,109 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Atom;
+import gov.nih.ncats.molwitch.Bond;
+import gov.nih.ncats.molwitch.Chemical;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestIncrementalInvalidation {
+
+    private static int[] implicitHs(Chemical c) {
+        int[] hs = new int[c.getAtomCount()];
+        for (int i = 0; i < hs.length; i++) {
+            hs[i] = c.getAtom(i).getImplicitHCount();
+        }
+        return hs;
+    }
+
+    //cyclohexanol built one atom at a time
+    private static Chemical buildCyclohexanol(boolean bulk) {
+        Chemical c = new Chemical();
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        CdkChemicalImpl.BulkEdit edit = bulk ? impl.beginEdit() : null;
+        List<Atom> ring = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ring.add(c.addAtom("C"));
+            if (i > 0) {
+                c.addBond(ring.get(i - 1), ring.get(i), Bond.BondType.SINGLE);
+            }
+        }
+        c.addBond(ring.get(5), ring.get(0), Bond.BondType.SINGLE);
+        Atom o = c.addAtom("O");
+        c.addBond(ring.get(0), o, Bond.BondType.SINGLE);
+        if (edit != null) {
+            edit.close();
+        }
+        return c;
+    }
+
+    @Test
+    public void atomByAtomBuildHasCorrectImplicitHs() throws Exception {
+        Chemical built = buildCyclohexanol(false);
+
+        assertArrayEquals(new int[]{1, 2, 2, 2, 2, 2, 1}, implicitHs(built));
+        assertEquals("C1(CCCCC1)O", built.toSmiles());
+    }
+
+    @Test
+    public void bulkEditMatchesIndividualEdits() throws Exception {
+        Chemical individual = buildCyclohexanol(false);
+        Chemical bulk = buildCyclohexanol(true);
+
+        assertArrayEquals(implicitHs(individual), implicitHs(bulk));
+        assertEquals(individual.toSmiles(), bulk.toSmiles());
+    }
+
+    @Test
+    public void nestedBulkEditOnlyFinishesOnOutermostClose() throws Exception {
+        Chemical c = new Chemical();
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        Atom n;
+        try (CdkChemicalImpl.BulkEdit outer = impl.beginEdit()) {
+            Atom ca = c.addAtom("C");
+            try (CdkChemicalImpl.BulkEdit inner = impl.beginEdit()) {
+                n = c.addAtom("N");
+                c.addBond(ca, n, Bond.BondType.SINGLE);
+            }
+            Atom o = c.addAtom("O");
+            c.addBond(ca, o, Bond.BondType.DOUBLE);
+        }
+        assertEquals("C(N)=O", c.toSmiles());
+        assertEquals(2, n.getImplicitHCount());
+        assertEquals(1, c.getAtom(0).getImplicitHCount());
+    }
+
+    @Test
+    public void addingBondToExistingStructureUpdatesNeighbors() throws Exception {
+        Chemical c = Chemical.parse("CCC.O");
+        c.addBond(c.getAtom(2), c.getAtom(3), Bond.BondType.SINGLE);
+        assertArrayEquals(new int[]{3, 2, 2, 1}, implicitHs(c));
+
+        //close a ring
+        Chemical chain = Chemical.parse("CCCCCC");
+        chain.addBond(chain.getAtom(0), chain.getAtom(5), Bond.BondType.SINGLE);
+        assertArrayEquals(new int[]{2, 2, 2, 2, 2, 2}, implicitHs(chain));
+        assertTrue(chain.getAtom(0).isInRing());
+        assertEquals(6, chain.getAtom(0).getSmallestRingSize());
+    }
+
+    @Test
+    public void changingStereoOnlyResetsStereoCaches() throws Exception {
+        Chemical c = Chemical.parse("CC(N)C1CCCCC1");
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        assertTrue(c.getAtom(4).isInRing());
+        assertTrue(impl.ringsSearcherSupplier.hasRun());
+        impl.cahnIngoldPrelogSupplier.get();
+
+        c.getBond(0).setStereo(Bond.Stereo.UP);
+        assertTrue(impl.ringsSearcherSupplier.hasRun());
+        assertFalse(impl.cahnIngoldPrelogSupplier.hasRun());
+
+        c.addBond(c.getAtom(2), c.getAtom(4), Bond.BondType.SINGLE);
+        assertFalse(impl.ringsSearcherSupplier.hasRun());
+    }
+}
@@ -0,0 +1,181 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.ChemicalSource;
+import gov.nih.ncats.molwitch.io.ChemicalReader;
+import gov.nih.ncats.molwitch.io.ChemicalReaderFactory;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class TestLazyFileSources {
+
+    private static final String[] SMILES = {
+            "CC(=O)Oc1ccccc1C(=O)O",
+            "C[C@@H](N)C(=O)O",
+            "c1ccc2ccccc2c1",
+            "CCN(CC)CC"
+    };
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @After
+    public void turnOffLazySources() {
+        CdkChemical2FactoryImpl.setLazyFileSources(false);
+    }
+
+    private File writeSdf(int copies) throws IOException {
+        StringBuilder sdf = new StringBuilder();
+        for (int i = 0; i < copies; i++) {
+            Chemical c = Chemical.parse(SMILES[i % SMILES.length]);
+            c.setName("lazy" + i);
+            c.setProperty("INDEX", Integer.toString(i));
+            sdf.append(c.toSd()).append("\n");
+        }
+        File f = tmp.newFile("lazy.sdf");
+        Files.write(f.toPath(), sdf.toString().getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static List<Chemical> readAll(File f) throws IOException {
+        List<Chemical> list = new ArrayList<>();
+        try (ChemicalReader reader = ChemicalReaderFactory.newReader(f)) {
+            while (reader.canRead()) {
+                list.add(reader.read());
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void lazySourcesHaveSameTextAsCapturedSources() throws Exception {
+        File f = writeSdf(12);
+        List<Chemical> captured = readAll(f);
+        CdkChemical2FactoryImpl.setLazyFileSources(true);
+        List<Chemical> lazy = readAll(f);
+
+        assertEquals(captured.size(), lazy.size());
+        for (int i = 0; i < captured.size(); i++) {
+            ChemicalSource lazySource = lazy.get(i).getSource().get();
+            assertTrue(lazySource instanceof LazyChemicalSource);
+            assertFalse(((LazyChemicalSource) lazySource).isMaterialized());
+
+            ChemicalSource expected = captured.get(i).getSource().get();
+            assertEquals(expected.getType(), lazySource.getType());
+            assertEquals(expected.getData(), lazySource.getData());
+            assertEquals(expected.getProperties(), lazySource.getProperties());
+            assertEquals(Integer.toString(i), lazy.get(i).getProperty("INDEX"));
+        }
+    }
+
+    @Test
+    public void streamsAreNotLazy() throws Exception {
+        File f = writeSdf(2);
+        CdkChemical2FactoryImpl.setLazyFileSources(true);
+        try (ChemicalReader reader = ChemicalReaderFactory.newReader(Files.newInputStream(f.toPath()))) {
+            ChemicalSource source = reader.read().getSource().get();
+            assertFalse(source instanceof LazyChemicalSource);
+        }
+    }
+
+    @Test
+    public void compressedFilesAreNotLazy() throws Exception {
+        File sdf = writeSdf(3);
+        byte[] bytes = Files.readAllBytes(sdf.toPath());
+        List<Chemical> captured = readAll(sdf);
+
+        File gz = tmp.newFile("lazy.sdf.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gz))) {
+            out.write(bytes);
+        }
+        File zip = tmp.newFile("lazy.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("lazy.sdf"));
+            out.write(bytes);
+            out.closeEntry();
+        }
+        CdkChemical2FactoryImpl.setLazyFileSources(true);
+        for (File f : new File[]{gz, zip}) {
+            List<Chemical> read = readAll(f);
+            assertEquals(captured.size(), read.size());
+            for (int i = 0; i < read.size(); i++) {
+                ChemicalSource source = read.get(i).getSource().get();
+                assertFalse(source instanceof LazyChemicalSource);
+                assertEquals(captured.get(i).getSource().get().getData(), source.getData());
+            }
+        }
+    }
+
+    @Test
+    public void lazyTextIsDecodedAsUtf8() throws Exception {
+        Chemical c = Chemical.parse("CCO");
+        c.setProperty("NAME", "\u00e9thanol \u03b1");
+        File f = tmp.newFile("utf8.sdf");
+        Files.write(f.toPath(), c.toSd().getBytes(StandardCharsets.UTF_8));
+        CdkChemical2FactoryImpl.setLazyFileSources(true);
+        List<Chemical> lazy = readAll(f);
+
+        assertEquals("\u00e9thanol \u03b1", lazy.get(0).getProperty("NAME"));
+        assertTrue(lazy.get(0).getSource().get().getData().contains("\u00e9thanol \u03b1"));
+    }
+
+    @Test
+    public void recordsAreFoundByTheirByteOffsets() throws Exception {
+        //multi-byte characters before later records, windows line endings and no line break at the end
+        StringBuilder sdf = new StringBuilder();
+        for (int i = 0; i < SMILES.length; i++) {
+            Chemical c = Chemical.parse(SMILES[i]);
+            c.setName("\u03b1lpha" + i);
+            c.setProperty("NAME", "\u00e9\u00e9\u00e9 " + i);
+            sdf.append(c.toSd()).append("\n");
+        }
+        String text = sdf.toString().replace("\r\n", "\n").replace("\n", "\r\n");
+        text = text.substring(0, text.lastIndexOf("$$$$") + 4);
+        File f = tmp.newFile("offsets.sdf");
+        Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+        CdkChemical2FactoryImpl.setLazyFileSources(true);
+        List<Chemical> lazy = readAll(f);
+        assertEquals(SMILES.length, lazy.size());
+        for (int i = 0; i < lazy.size(); i++) {
+            String data = lazy.get(i).getSource().get().getData();
+            assertTrue(data, data.startsWith("\u03b1lpha" + i + System.lineSeparator()));
+            assertTrue(data, data.contains("\u00e9\u00e9\u00e9 " + i));
+            assertTrue(data, data.endsWith("$$$$" + System.lineSeparator()));
+            assertEquals(Chemical.parse(SMILES[i]).toSmiles(), Chemical.parse(data).toSmiles());
+        }
+        assertFalse(SdfRecordIndex.getSidecarFileFor(f).exists());
+    }
+
+    @Test
+    public void filesThatAreNotLazyUseThePlatformCharset() throws Exception {
+        Charset platform = Charset.defaultCharset();
+        //what the platform charset can hold of it
+        String name = new String("\u00e9thanol".getBytes(platform), platform);
+        Chemical c = Chemical.parse("CCO");
+        c.setProperty("NAME", name);
+        File f = tmp.newFile("default.sdf");
+        Files.write(f.toPath(), c.toSd().getBytes(platform));
+
+        Chemical read = readAll(f).get(0);
+        assertEquals(name, read.getProperty("NAME"));
+        assertTrue(read.getSource().get().getData().contains(name));
+    }
+}
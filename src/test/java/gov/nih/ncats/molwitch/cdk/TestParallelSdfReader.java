@@ -0,0 +1,160 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.ChemicalSource;
+import gov.nih.ncats.molwitch.io.ChemicalReader;
+import gov.nih.ncats.molwitch.io.ChemicalReaderFactory;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestParallelSdfReader {
+
+    private static final String[] SMILES = {
+            "CC(=O)Oc1ccccc1C(=O)O",
+            "CN1C=NC2=C1C(=O)N(C(=O)N2C)C",
+            "C[C@@H](N)C(=O)O",
+            "OC[C@H]1OC(O)[C@H](O)[C@@H](O)[C@@H]1O",
+            "c1ccc2ccccc2c1",
+            "CCN(CC)CC"
+    };
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @After
+    public void resetThreads() {
+        CdkChemical2FactoryImpl.setSdfReaderThreads(1);
+    }
+
+    private File writeSdf(int copies) throws IOException {
+        StringBuilder sdf = new StringBuilder();
+        for (int i = 0; i < copies; i++) {
+            Chemical c = Chemical.parse(SMILES[i % SMILES.length]);
+            c.setName("record" + i);
+            c.setProperty("INDEX", Integer.toString(i));
+            sdf.append(c.toSd()).append("\n");
+        }
+        File f = tmp.newFile("test.sdf");
+        Files.write(f.toPath(), sdf.toString().getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static List<Chemical> readAll(File f) throws IOException {
+        List<Chemical> list = new ArrayList<>();
+        try (ChemicalReader reader = ChemicalReaderFactory.newReader(f)) {
+            while (reader.canRead()) {
+                list.add(reader.read());
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void parallelReadMatchesSerialReadInOrder() throws Exception {
+        File f = writeSdf(200);
+
+        List<Chemical> serial = readAll(f);
+        CdkChemical2FactoryImpl.setSdfReaderThreads(4);
+        List<Chemical> parallel = readAll(f);
+
+        assertEquals(200, serial.size());
+        assertEquals(serial.size(), parallel.size());
+        for (int i = 0; i < serial.size(); i++) {
+            Chemical expected = serial.get(i);
+            Chemical actual = parallel.get(i);
+            assertEquals(Integer.toString(i), actual.getProperty("INDEX"));
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.toSmiles(), actual.toSmiles());
+
+            ChemicalSource expectedSource = expected.getSource().get();
+            ChemicalSource actualSource = actual.getSource().get();
+            assertEquals(expectedSource.getType(), actualSource.getType());
+            assertEquals(expectedSource.getData(), actualSource.getData());
+            assertEquals(expectedSource.getProperties(), actualSource.getProperties());
+        }
+    }
+
+    @Test
+    public void filePropertiesAreSetOnEachSource() throws Exception {
+        File f = writeSdf(10);
+        CdkChemical2FactoryImpl.setSdfReaderThreads(3);
+        for (Chemical c : readAll(f)) {
+            ChemicalSource source = c.getSource().get();
+            assertEquals(ChemicalSource.Type.SDF, source.getType());
+            assertEquals(f.getName(), source.getProperties().get(ChemicalSource.CommonProperties.Filename));
+        }
+    }
+
+    private static Set<Thread> readerThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("sdf-reader-")) {
+                threads.add(t);
+            }
+        }
+        return threads;
+    }
+
+    private static void assertAllEnd(Set<Thread> threads, boolean collectGarbage) throws InterruptedException {
+        long giveUp = System.currentTimeMillis() + 10_000;
+        for (Thread t : threads) {
+            while (t.isAlive() && System.currentTimeMillis() < giveUp) {
+                if (collectGarbage) {
+                    System.gc();
+                }
+                t.join(100);
+            }
+            assertFalse(t.getName() + " is still running", t.isAlive());
+        }
+    }
+
+    @Test
+    public void threadsEndOnceAllRecordsAreRead() throws Exception {
+        File f = writeSdf(20);
+        Set<Thread> before = readerThreads();
+        CdkChemical2FactoryImpl.setSdfReaderThreads(3);
+        try (ChemicalReader reader = ChemicalReaderFactory.newReader(f)) {
+            Set<Thread> ours = readerThreads();
+            ours.removeAll(before);
+            assertFalse(ours.isEmpty());
+            while (reader.canRead()) {
+                reader.read();
+            }
+            //still open but there is nothing left for the threads to do
+            assertAllEnd(ours, false);
+        }
+    }
+
+    @Test
+    public void abandonedReaderIsStoppedWhenCollected() throws Exception {
+        //many more records than fit in the queue so the splitter is left waiting
+        File f = writeSdf(500);
+        Set<Thread> before = readerThreads();
+        CdkChemical2FactoryImpl.setSdfReaderThreads(2);
+        Set<Thread> ours = readOneRecordAndAbandon(f);
+        ours.removeAll(before);
+        assertFalse(ours.isEmpty());
+
+        assertAllEnd(ours, true);
+    }
+
+    private static Set<Thread> readOneRecordAndAbandon(File f) throws IOException {
+        ChemicalReader reader = ChemicalReaderFactory.newReader(f);
+        assertTrue(reader.canRead());
+        assertEquals("record0", reader.read().getName());
+        return readerThreads();
+    }
+}
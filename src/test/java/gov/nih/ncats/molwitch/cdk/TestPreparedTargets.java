@@ -0,0 +1,127 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.search.CdkMolSearcher;
+import gov.nih.ncats.molwitch.cdk.search.PreparedTarget;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class TestPreparedTargets {
+
+    private static final String[] TARGETS = {
+            "CC(=O)Oc1ccccc1C(=O)O",
+            "C1=CC=CC=C1CCN",
+            "c1ccc2ccccc2c1",
+            "C1CCCCC1O",
+            "O=C1NC(=O)c2ccccc12",
+            "CN1C=NC2=C1C(=O)N(C(=O)N2C)C",
+            "CCOC(=O)C"
+    };
+
+    private static final String[] SMARTS = {
+            "c1ccccc1",
+            "[R]",
+            "[r6]",
+            "[#6;!R]",
+            "C(=O)[OX2]",
+            "[$(C=O)]N",
+            "a:a-[#7]",
+            "[x2]"
+    };
+
+    private static List<Chemical> targets() throws Exception {
+        List<Chemical> list = new ArrayList<>();
+        for (String smiles : TARGETS) {
+            list.add(Chemical.parse(smiles));
+        }
+        return list;
+    }
+
+    private static void assertSameResult(Optional<int[]> expected, Optional<int[]> actual) {
+        assertEquals(expected.isPresent(), actual.isPresent());
+        if (expected.isPresent()) {
+            assertArrayEquals(expected.get(), actual.get());
+        }
+    }
+
+    @Test
+    public void smartsResultsMatchUnpreparedSearch() throws Exception {
+        List<PreparedTarget> prepared = new ArrayList<>();
+        for (Chemical c : targets()) {
+            prepared.add(PreparedTarget.of(c));
+        }
+        List<Chemical> targets = targets();
+        for (String smarts : SMARTS) {
+            CdkMolSearcher searcher = new CdkMolSearcher(smarts);
+            List<Optional<int[]>> all = searcher.searchAll(prepared);
+            assertEquals(targets.size(), all.size());
+            for (int i = 0; i < targets.size(); i++) {
+                Optional<int[]> expected = searcher.search(targets.get(i));
+                assertSameResult(expected, searcher.search(prepared.get(i)));
+                assertSameResult(expected, all.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void preparedAndDirectSearchAgreeForEveryKindOfQuery() throws Exception {
+        //aromatic and kekule smiles plus the same structures kekulized from a mol file
+        List<Chemical> targets = targets();
+        for (String smiles : TARGETS) {
+            targets.add(Chemical.parseMol(Chemical.parse(smiles).toMol()));
+        }
+        List<PreparedTarget> prepared = new ArrayList<>();
+        for (Chemical c : targets) {
+            prepared.add(PreparedTarget.of(c));
+        }
+        List<CdkMolSearcher> queries = new ArrayList<>();
+        for (String q : new String[]{"C1=CC=CC=C1", "c1ccccc1", "C=C", "CC", "CN", "C=O", "c1ccccc1O"}) {
+            queries.add(new CdkMolSearcher(Chemical.parse(q)));
+        }
+        queries.add(new CdkMolSearcher(Chemical.createFromSmarts("[#6]~[#7]")));
+        for (String smarts : SMARTS) {
+            queries.add(new CdkMolSearcher(smarts));
+        }
+        for (CdkMolSearcher query : queries) {
+            List<Optional<int[]>> all = query.searchAll(prepared);
+            for (int i = 0; i < targets.size(); i++) {
+                Optional<int[]> expected = query.search(targets.get(i));
+                assertSameResult(expected, query.search(prepared.get(i)));
+                assertSameResult(expected, all.get(i));
+                assertEquals(query.findAll(targets.get(i), true, 0).count(),
+                        query.findAll(prepared.get(i), true, 0).count());
+            }
+        }
+    }
+
+    @Test
+    public void panelAgainstOneTarget() throws Exception {
+        List<CdkMolSearcher> panel = new ArrayList<>();
+        for (String smarts : SMARTS) {
+            panel.add(new CdkMolSearcher(smarts));
+        }
+        panel.add(new CdkMolSearcher(Chemical.parse("c1ccccc1O")));
+
+        Chemical aspirin = Chemical.parse(TARGETS[0]);
+        List<Optional<int[]>> results = CdkMolSearcher.searchAll(panel, PreparedTarget.of(aspirin));
+        assertEquals(panel.size(), results.size());
+        for (int i = 0; i < panel.size(); i++) {
+            assertSameResult(panel.get(i).search(Chemical.parse(TARGETS[0])), results.get(i));
+        }
+    }
+
+    @Test
+    public void preparingDoesNotChangeTheChemical() throws Exception {
+        Chemical kekule = Chemical.parse("C1=CC=CC=C1CCN");
+        String before = kekule.toSmiles();
+        PreparedTarget target = PreparedTarget.of(kekule);
+        assertTrue(new CdkMolSearcher("c1ccccc1").search(target).isPresent());
+        assertEquals(before, kekule.toSmiles());
+        assertSame(kekule, target.getChemical());
+    }
+}
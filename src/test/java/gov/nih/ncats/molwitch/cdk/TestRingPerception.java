@@ -0,0 +1,89 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Atom;
+import gov.nih.ncats.molwitch.Bond;
+import gov.nih.ncats.molwitch.Chemical;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestRingPerception {
+
+    //2 rings of n carbons joined by n rungs, same number of atoms and bonds as C60 when n is 30
+    private static Chemical prism(int n) {
+        Chemical c = new Chemical();
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        try (CdkChemicalImpl.BulkEdit edit = impl.beginEdit()) {
+            Atom[] top = new Atom[n];
+            Atom[] bottom = new Atom[n];
+            for (int i = 0; i < n; i++) {
+                top[i] = c.addAtom("C");
+                bottom[i] = c.addAtom("C");
+                c.addBond(top[i], bottom[i], Bond.BondType.SINGLE);
+            }
+            for (int i = 0; i < n; i++) {
+                c.addBond(top[i], top[(i + 1) % n], Bond.BondType.SINGLE);
+                c.addBond(bottom[i], bottom[(i + 1) % n], Bond.BondType.SINGLE);
+            }
+        }
+        return c;
+    }
+
+    @Test
+    public void largeCageDoesNotTimeOut() throws Exception {
+        Chemical c = prism(30);
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        assertEquals(60, c.getAtomCount());
+        assertEquals(90, c.getBondCount());
+
+        for (int i = 0; i < c.getAtomCount(); i++) {
+            assertTrue(c.getAtom(i).isInRing());
+        }
+        for (int i = 0; i < c.getBondCount(); i++) {
+            assertTrue(c.getBond(i).isInRing());
+        }
+        assertEquals(31, impl.getLargestRingSystemCircuitRank());
+
+        RingPerception rings = impl.ringPerceptionSupplier.get();
+        assertEquals(31, rings.getSssr().getAtomContainerCount());
+        assertEquals(4, rings.getSmallestRingSize());
+    }
+
+    @Test
+    public void flagsAreClearedForAcyclicAtomsAndBonds() throws Exception {
+        Chemical c = Chemical.parse("C1CCCCC1CCO");
+        for (int i = 0; i < 6; i++) {
+            assertTrue(c.getAtom(i).isInRing());
+        }
+        for (int i = 6; i < 9; i++) {
+            assertFalse(c.getAtom(i).isInRing());
+        }
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        //bond from the ring to the chain
+        assertFalse(c.getBond(6).isInRing());
+
+        //breaking the ring clears the flags
+        c.removeBond(c.getBond(5));
+        assertFalse(c.getAtom(0).isInRing());
+        assertFalse(c.getBond(0).isInRing());
+        assertEquals(0, impl.getLargestRingSystemCircuitRank());
+    }
+
+    @Test
+    public void smallestRingOfAtomsAndBonds() throws Exception {
+        //methyl bicyclo[2.2.0]hexane, 2 fused cyclobutanes
+        Chemical c = Chemical.parse("C1CC2CCC12C");
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        RingPerception rings = impl.ringPerceptionSupplier.get();
+
+        org.openscience.cdk.interfaces.IAtomContainer container = impl.getContainer();
+        assertEquals(4, rings.getSmallestRingSize(container.getAtom(0)));
+        assertEquals(4, rings.getSmallestRingSize(container.getAtom(2)));
+        assertEquals(4, rings.getSmallestRingSize(container.getAtom(3)));
+        assertEquals(0, rings.getSmallestRingSize(container.getAtom(6)));
+        //shared bond between the 2 rings
+        assertEquals(4, rings.getSmallestRingSize(container.getBond(container.getAtom(2), container.getAtom(5))));
+        assertEquals(0, rings.getSmallestRingSize(container.getBond(container.getAtom(5), container.getAtom(6))));
+        assertEquals(2, rings.getSssr().getAtomContainerCount());
+    }
+}
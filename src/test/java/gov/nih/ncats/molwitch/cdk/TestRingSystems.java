@@ -0,0 +1,82 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Bond;
+import gov.nih.ncats.molwitch.Chemical;
+import org.junit.Test;
+import org.openscience.cdk.graph.GraphUtil;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TestRingSystems {
+
+    private static RingSystems ringSystemsOf(String smiles) throws Exception {
+        CdkChemicalImpl impl = (CdkChemicalImpl) Chemical.parse(smiles).getImpl();
+        return RingSystems.of(GraphUtil.toAdjList(impl.getContainer()));
+    }
+
+    private static int largest(String smiles) throws Exception {
+        return ((CdkChemicalImpl) Chemical.parse(smiles).getImpl()).getLargestRingSystemCircuitRank();
+    }
+
+    @Test
+    public void acyclic() throws Exception {
+        assertEquals(0, largest("CCC(C)CCO"));
+        assertEquals(0, ringSystemsOf("CCC(C)CCO").size());
+    }
+
+    @Test
+    public void ringCounts() throws Exception {
+        assertEquals(1, largest("C1CCCCC1"));
+        assertEquals(2, largest("c1ccc2ccccc2c1"));
+        //cubane
+        assertEquals(5, largest("C12C3C4C1C5C2C3C45"));
+        //adamantane
+        assertEquals(3, largest("C1C2CC3CC1CC(C2)C3"));
+        //rings too big for the all rings finder limit still count
+        assertEquals(1, largest("C1CCCCCCCCCCCCCCCCC1"));
+    }
+
+    @Test
+    public void spiroRingsAreOneSystem() throws Exception {
+        assertEquals(2, largest("C1CCC2(CC1)CCCCC2"));
+    }
+
+    @Test
+    public void separateSystemsAreCountedSeparately() throws Exception {
+        RingSystems systems = ringSystemsOf("c1ccccc1-c1ccc2ccccc2c1.C1CC1");
+        int[] ranks = systems.getCircuitRanks();
+        Arrays.sort(ranks);
+        assertArrayEquals(new int[]{1, 1, 2}, ranks);
+        assertEquals(2, systems.getLargestCircuitRank());
+    }
+
+    @Test
+    public void recomputedWhenStructureChanges() throws Exception {
+        Chemical c = Chemical.parse("CCCCCC");
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        assertEquals(0, impl.getLargestRingSystemCircuitRank());
+        c.addBond(c.getAtom(0), c.getAtom(5), Bond.BondType.SINGLE);
+        assertEquals(1, impl.getLargestRingSystemCircuitRank());
+        c.addBond(c.getAtom(0), c.getAtom(3), Bond.BondType.SINGLE);
+        assertEquals(2, impl.getLargestRingSystemCircuitRank());
+    }
+
+    @Test
+    public void longChainDoesNotOverflowStack() throws Exception {
+        //a 3 ring on the end of a 100,000 atom chain
+        int n = 100_000;
+        int[][] graph = new int[n][];
+        graph[0] = new int[]{1, 2};
+        graph[1] = new int[]{0, 2};
+        graph[2] = new int[]{0, 1, 3};
+        for (int i = 3; i < n - 1; i++) {
+            graph[i] = new int[]{i - 1, i + 1};
+        }
+        graph[n - 1] = new int[]{n - 2};
+        RingSystems systems = RingSystems.of(graph);
+        assertEquals(1, systems.size());
+        assertEquals(1, systems.getLargestCircuitRank());
+    }
+}
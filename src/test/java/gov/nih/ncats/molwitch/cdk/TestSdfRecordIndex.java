@@ -0,0 +1,132 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.ChemicalSource;
+import gov.nih.ncats.molwitch.io.ChemicalReader;
+import gov.nih.ncats.molwitch.io.ChemicalReaderFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestSdfRecordIndex {
+
+    private static final String[] SMILES = {
+            "CC(=O)Oc1ccccc1C(=O)O",
+            "CN1C=NC2=C1C(=O)N(C(=O)N2C)C",
+            "C[C@@H](N)C(=O)O",
+            "c1ccc2ccccc2c1",
+            "CCN(CC)CC"
+    };
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File writeSdf(int copies) throws IOException {
+        StringBuilder sdf = new StringBuilder();
+        for (int i = 0; i < copies; i++) {
+            Chemical c = Chemical.parse(SMILES[i % SMILES.length]);
+            c.setName("ID-" + i);
+            c.setProperty("INDEX", Integer.toString(i));
+            sdf.append(c.toSd()).append("\n");
+        }
+        File f = tmp.newFile("vendor.sdf");
+        Files.write(f.toPath(), sdf.toString().getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static Chemical read(IndexedSdfReader reader) throws IOException {
+        return new Chemical(reader.read());
+    }
+
+    @Test
+    public void indexHasEveryRecordAndId() throws Exception {
+        File f = writeSdf(50);
+        SdfRecordIndex index = SdfRecordIndex.build(f);
+        assertEquals(50, index.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("ID-" + i, index.getId(i));
+            assertEquals(i, index.getOrdinalOf("ID-" + i).getAsInt());
+        }
+        assertFalse(index.getOrdinalOf("not there").isPresent());
+        assertEquals(f.length(), index.getOffset(49) + index.getLength(49));
+    }
+
+    @Test
+    public void seekByOrdinalAndIdMatchesSequentialRead() throws Exception {
+        File f = writeSdf(30);
+        List<Chemical> sequential = new ArrayList<>();
+        try (ChemicalReader reader = ChemicalReaderFactory.newReader(f)) {
+            while (reader.canRead()) {
+                sequential.add(reader.read());
+            }
+        }
+
+        SdfRecordIndex index = SdfRecordIndex.open(f);
+        try (IndexedSdfReader reader = index.newReader()) {
+            Chemical c = new Chemical(reader.read(17));
+            assertEquals("17", c.getProperty("INDEX"));
+            assertEquals(sequential.get(17).toSmiles(), c.toSmiles());
+            assertEquals(sequential.get(17).getName(), c.getName());
+
+            ChemicalSource expectedSource = sequential.get(17).getSource().get();
+            ChemicalSource source = c.getSource().get();
+            assertEquals(expectedSource.getType(), source.getType());
+            assertEquals(expectedSource.getProperties(), source.getProperties());
+
+            //keeps reading from there
+            assertEquals("18", read(reader).getProperty("INDEX"));
+
+            assertTrue(reader.seek("ID-3"));
+            assertEquals("3", read(reader).getProperty("INDEX"));
+
+            assertFalse(reader.seek("ID-999"));
+            reader.seek(29);
+            assertEquals("29", read(reader).getProperty("INDEX"));
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void sidecarIsWrittenAndReused() throws Exception {
+        File f = writeSdf(10);
+        File sidecar = SdfRecordIndex.getSidecarFileFor(f);
+        assertFalse(sidecar.exists());
+
+        SdfRecordIndex built = SdfRecordIndex.open(f);
+        assertTrue(sidecar.exists());
+
+        SdfRecordIndex loaded = SdfRecordIndex.load(f, sidecar);
+        assertTrue(loaded.isUpToDate());
+        assertEquals(built.size(), loaded.size());
+        for (int i = 0; i < built.size(); i++) {
+            assertEquals(built.getId(i), loaded.getId(i));
+            assertEquals(built.getOffset(i), loaded.getOffset(i));
+            assertEquals(built.getLength(i), loaded.getLength(i));
+        }
+    }
+
+    @Test
+    public void staleSidecarIsRebuilt() throws Exception {
+        File f = writeSdf(10);
+        SdfRecordIndex.open(f);
+
+        Chemical extra = Chemical.parse("CCO");
+        extra.setName("ID-extra");
+        Files.write(f.toPath(), (extra.toSd() + "\n").getBytes(StandardCharsets.UTF_8),
+                java.nio.file.StandardOpenOption.APPEND);
+        assertTrue(f.setLastModified(f.lastModified() + 2000));
+
+        SdfRecordIndex index = SdfRecordIndex.open(f);
+        assertEquals(11, index.size());
+        assertEquals(10, index.getOrdinalOf("ID-extra").getAsInt());
+    }
+}
@@ -0,0 +1,131 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.BatchFingerprinter;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.DefaultFingerPrinter;
+import gov.nih.ncats.molwitch.cdk.fingerprinters.SimilarityIndex;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprint;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinter;
+import gov.nih.ncats.molwitch.fingerprint.Fingerprinters;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TestSimilarityIndex {
+
+    private static final String[] SMILES = {
+            "CC(=O)Oc1ccccc1C(=O)O", "OC(=O)c1ccccc1O", "CC(=O)Nc1ccc(O)cc1", "CN1C=NC2=C1C(=O)N(C(=O)N2C)C",
+            "CN1C(=O)N(C)c2nc[nH]c2C1=O", "CC(C)Cc1ccc(cc1)C(C)C(=O)O", "c1ccc2ccccc2c1", "c1ccc2cc3ccccc3cc2c1",
+            "NCCc1ccc(O)c(O)c1", "CC(N)Cc1ccccc1", "CCO", "CCCO", "OC(=O)CCC(=O)O", "OC(=O)CC(O)(CC(=O)O)C(=O)O",
+            "C1CCCCC1", "c1ccccc1", "Cc1ccccc1", "Oc1ccccc1"
+    };
+
+    private static double tanimoto(BitSet a, BitSet b) {
+        BitSet and = (BitSet) a.clone();
+        and.and(b);
+        int common = and.cardinality();
+        return (double) common / (a.cardinality() + b.cardinality() - common);
+    }
+
+    /**
+     * Expected hits as {@code index=similarity}, best first and ties by index.
+     */
+    private static List<double[]> bruteForce(List<BitSet> fps, BitSet query) {
+        List<double[]> hits = new ArrayList<>();
+        for (int i = 0; i < fps.size(); i++) {
+            if (!fps.get(i).isEmpty()) {
+                hits.add(new double[]{i, tanimoto(fps.get(i), query)});
+            }
+        }
+        hits.sort(Comparator.<double[]>comparingDouble(h -> -h[1]).thenComparingDouble(h -> h[0]));
+        return hits;
+    }
+
+    private static List<String> describe(List<double[]> hits) {
+        return hits.stream().map(h -> (int) h[0] + "=" + h[1]).collect(Collectors.toList());
+    }
+
+    private static List<String> describeHits(List<SimilarityIndex.Hit> hits) {
+        return hits.stream().map(h -> h.getIndex() + "=" + h.getSimilarity()).collect(Collectors.toList());
+    }
+
+    private static void assertMatchesBruteForce(SimilarityIndex index, List<BitSet> fps, Fingerprint query) {
+        List<double[]> expected = bruteForce(fps, query.toBitSet());
+        for (int k : new int[]{1, 3, 10, fps.size()}) {
+            assertEquals("top " + k, describe(expected.subList(0, Math.min(k, expected.size()))),
+                    describeHits(index.topK(query, k)));
+        }
+        for (double t : new double[]{0.3, 0.5, 0.8, 1.0}) {
+            List<double[]> atOrAbove = expected.stream()
+                    .filter(h -> h[1] >= t)
+                    .collect(Collectors.toList());
+            assertEquals("threshold " + t, describe(atOrAbove), describeHits(index.threshold(query, t)));
+        }
+    }
+
+    @Test
+    public void pathFingerprintQueriesMatchBruteForce() throws IOException {
+        Fingerprinters.PathBasedSpecification spec = Fingerprinters.FingerprintSpecification.PATH_BASED.create().setLength(1024);
+        BatchFingerprinter batch = new DefaultFingerPrinter().createBatchFingerprinterFor(spec);
+        Fingerprinter single = Fingerprinters.getFingerprinter(spec);
+        List<Chemical> chemicals = new ArrayList<>();
+        List<BitSet> fps = new ArrayList<>();
+        for (String s : SMILES) {
+            Chemical c = Chemical.parse(s);
+            chemicals.add(c);
+            fps.add(single.computeFingerprint(c).toBitSet());
+        }
+        SimilarityIndex index = SimilarityIndex.build(batch, chemicals);
+        assertEquals(SMILES.length, index.size());
+
+        for (Chemical c : chemicals) {
+            assertMatchesBruteForce(index, fps, single.computeFingerprint(c));
+        }
+        //a structure is always its own best hit
+        List<SimilarityIndex.Hit> top = index.topK(Chemical.parse("CC(=O)Oc1ccccc1C(=O)O"), 1);
+        assertEquals(0, top.get(0).getIndex());
+        assertEquals(1.0, top.get(0).getSimilarity(), 0);
+    }
+
+    @Test
+    public void largeIndexScansInParallel() throws IOException {
+        //fingerprints are random bits keyed by the Chemical object so many entries share one
+        List<Chemical> distinct = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            distinct.add(Chemical.parse("C"));
+        }
+        Random random = new Random(42);
+        Map<Chemical, BitSet> bits = new IdentityHashMap<>();
+        for (Chemical c : distinct) {
+            BitSet bs = new BitSet(256);
+            int n = random.nextInt(60);
+            for (int j = 0; j < n; j++) {
+                bs.set(random.nextInt(256));
+            }
+            bits.put(c, bs);
+        }
+        Fingerprinter fingerprinter = c -> new Fingerprint((BitSet) bits.get(c).clone(), 256);
+
+        List<Chemical> chemicals = new ArrayList<>();
+        List<BitSet> fps = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            Chemical c = distinct.get(random.nextInt(distinct.size()));
+            chemicals.add(c);
+            fps.add(bits.get(c));
+        }
+        SimilarityIndex index = SimilarityIndex.build(new BatchFingerprinter(() -> fingerprinter, 256), chemicals);
+        for (int i = 0; i < 5; i++) {
+            assertMatchesBruteForce(index, fps, fingerprinter.computeFingerprint(distinct.get(i)));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Bond;
+import gov.nih.ncats.molwitch.Chemical;
+import org.junit.Test;
+import org.openscience.cdk.graph.Cycles;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IRingSet;
+
+import static org.junit.Assert.*;
+
+public class TestSmallestRingSizes {
+
+    //the way CdkAtom used to compute it for every call
+    private static int expectedSize(IRingSet sssr, IAtom atom) {
+        int min = 0;
+        for (IAtomContainer r : sssr.atomContainers()) {
+            if (r.contains(atom) && (min == 0 || r.getAtomCount() < min)) {
+                min = r.getAtomCount();
+            }
+        }
+        return min;
+    }
+
+    private static int expectedSize(IRingSet sssr, IBond bond) {
+        int min = 0;
+        for (IAtomContainer r : sssr.atomContainers()) {
+            if (r.contains(bond) && (min == 0 || r.getAtomCount() < min)) {
+                min = r.getAtomCount();
+            }
+        }
+        return min;
+    }
+
+    @Test
+    public void sameSizesAsSssrScan() throws Exception {
+        String[] smiles = {
+                "CCO",
+                "C1CC1CC1CCCCC1",
+                "c1ccc2ccccc2c1",
+                "C1CC2CCC1C2",
+                "C12C3C4C1C5C2C3C45",
+                "C1CCC2(CC1)CCCC2",
+                "OC1C(O)C(O)C(CO)OC1OC1C(O)C(O)C(O)OC1CO"
+        };
+        for (String s : smiles) {
+            Chemical c = Chemical.parse(s);
+            CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+            IAtomContainer container = impl.getContainer();
+            IRingSet sssr = Cycles.sssr(container).toRingSet();
+            for (int i = 0; i < c.getAtomCount(); i++) {
+                assertEquals(s + " atom " + i, expectedSize(sssr, container.getAtom(i)), c.getAtom(i).getSmallestRingSize());
+            }
+            for (int i = 0; i < c.getBondCount(); i++) {
+                assertEquals(s + " bond " + i, expectedSize(sssr, container.getBond(i)),
+                        ((CdkBond) c.getBond(i)).getSmallestRingSize());
+            }
+        }
+    }
+
+    @Test
+    public void smallestRingOfWholeStructure() throws Exception {
+        assertEquals(0, Chemical.parse("CCCC").getSmallestRingSize());
+        assertEquals(3, Chemical.parse("C1CC1CC1CCCCC1").getSmallestRingSize());
+        assertEquals(6, Chemical.parse("c1ccc2ccccc2c1").getSmallestRingSize());
+    }
+
+    @Test
+    public void ringsComputedOncePerVersion() throws Exception {
+        Chemical c = Chemical.parse("C1CCCCC1CCCC");
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        RingPerception rings = impl.ringPerceptionSupplier.get();
+        for (int i = 0; i < c.getAtomCount(); i++) {
+            c.getAtom(i).getSmallestRingSize();
+        }
+        assertSame(rings, impl.ringPerceptionSupplier.get());
+
+        //a new version of the structure gets new rings
+        c.addBond(c.getAtom(6), c.getAtom(9), Bond.BondType.SINGLE);
+        assertNotSame(rings, impl.ringPerceptionSupplier.get());
+        assertEquals(4, c.getAtom(7).getSmallestRingSize());
+        assertEquals(6, c.getAtom(0).getSmallestRingSize());
+    }
+}
@@ -0,0 +1,77 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.CdkChemical2FactoryImpl.SmilesKind;
+import gov.nih.ncats.molwitch.spi.ChemicalImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class TestSmilesParsing {
+
+    private static final String[] SMILES = {
+            "CC(=O)Oc1ccccc1C(=O)O",
+            "CN1C=NC2=C1C(=O)N(C(=O)N2C)C",
+            "C[C@@H](N)C(=O)O",
+            "OC[C@H]1OC(O)[C@H](O)[C@@H](O)[C@@H]1O",
+            "c1ccc2ccccc2c1",
+            "ClCCBr",
+            "[13CH4]",
+            "n1cccc1",
+            "Cn1cnc2c1c(=O)n(C)c(=O)n2C"
+    };
+
+    @Test
+    public void classify() {
+        assertEquals(SmilesKind.ALIPHATIC, SmilesKind.classify("ClCC(Br)CO"));
+        assertEquals(SmilesKind.ALIPHATIC, SmilesKind.classify("[13CH4]"));
+        assertEquals(SmilesKind.ALIPHATIC, SmilesKind.classify("CC[Na] |$;R1;$|"));
+        assertEquals(SmilesKind.AROMATIC, SmilesKind.classify("c1ccccc1"));
+        assertEquals(SmilesKind.AROMATIC, SmilesKind.classify("[nH]1cccc1"));
+        assertEquals(SmilesKind.AROMATIC, SmilesKind.classify("[13c]1ccccc1"));
+        assertEquals(SmilesKind.AROMATIC, SmilesKind.classify("C1:C:C:C:C:C1"));
+        assertEquals(SmilesKind.ALIPHATIC, SmilesKind.classify("[Na+].[Cl-]"));
+        assertEquals(SmilesKind.AROMATIC, SmilesKind.classify("[se]1cccc1"));
+        assertEquals(SmilesKind.AROMATIC, SmilesKind.classify("[C;a]"));
+    }
+
+    @Test
+    public void pyrroleWithoutHydrogenIsFixed() throws Exception {
+        ChemicalImpl impl = new CdkChemical2FactoryImpl().createFromSmiles("[n]1cccc1");
+        assertEquals(5, impl.getAtomCount());
+    }
+
+    @Test
+    public void smartsOnlySyntaxStillParses() throws Exception {
+        ChemicalImpl impl = new CdkChemical2FactoryImpl().createFromSmiles("[CX4]");
+        assertEquals(1, impl.getAtomCount());
+    }
+
+    @Test
+    public void concurrentParsingMatchesSerialParsing() throws Exception {
+        CdkChemical2FactoryImpl factory = new CdkChemical2FactoryImpl();
+        List<String> expected = new ArrayList<>();
+        for (String smiles : SMILES) {
+            expected.add(new Chemical(factory.createFromSmiles(smiles)).toSmiles());
+        }
+        ExecutorService service = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String smiles = SMILES[i % SMILES.length];
+                futures.add(service.submit(() -> new Chemical(factory.createFromSmiles(smiles)).toSmiles()));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(expected.get(i % SMILES.length), futures.get(i).get());
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+}
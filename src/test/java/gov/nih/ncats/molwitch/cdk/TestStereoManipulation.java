@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class TestStereoManipulation {
 
@@ -133,6 +134,45 @@ public class TestStereoManipulation {
         });
     }
 
+    @Test
+    public void epimersDontShareEditsWithOriginalOrEachOther() throws Exception {
+        Chemical before = Chemical.parse("CC(O)C(N)CC1CCCCC1");
+        CdkChemicalImpl b = (CdkChemicalImpl) before.getImpl();
+        //the ring system size is read off the ring perception, without copying the structure
+        Assert.assertEquals(1, org.openscience.cdk.geometry.cip.CIPToolMod.getSizeOfLargestRingSystem(b));
+        Assert.assertEquals(12, before.getAtomCount());
+        Assert.assertEquals(12, before.getBondCount());
+
+        List<Chemical> epimers = b.permuteEpimers();
+        Assert.assertEquals(4, epimers.size());
+        Assert.assertEquals(0, getStereoBondCount(before, Bond.Stereo.UP) + getStereoBondCount(before, Bond.Stereo.DOWN));
+        for (Chemical epimer : epimers) {
+            Assert.assertEquals(before.getBondCount(), epimer.getBondCount());
+            int wedges = 0;
+            for (Bond.Stereo stereo : Bond.Stereo.values()) {
+                if (stereo != Bond.Stereo.NONE) {
+                    wedges += getStereoBondCount(epimer, stereo);
+                }
+            }
+            Assert.assertEquals(1, wedges);
+        }
+    }
+
+    @Test
+    public void epimerStreamGivesTheSameEpimersAsTheList() throws Exception {
+        Chemical before = Chemical.parse("CC(O)C(N)CC1CCCCC1");
+        CdkChemicalImpl b = (CdkChemicalImpl) before.getImpl();
+
+        List<Chemical> epimers = b.permuteEpimers();
+        List<Chemical> streamed = b.epimers().collect(Collectors.toList());
+        Assert.assertEquals(epimers.size(), streamed.size());
+        for (int i = 0; i < epimers.size(); i++) {
+            Assert.assertEquals(epimers.get(i).toSmiles(), streamed.get(i).toSmiles());
+        }
+        Assert.assertEquals(1, b.epimers().limit(1).count());
+        Assert.assertEquals(epimers.size(), b.epimersAndEnantiomers().count());
+    }
+
     @Test
     public void testSet2() throws IOException {
         List<TestMol> testMols = generateTestMolSet();
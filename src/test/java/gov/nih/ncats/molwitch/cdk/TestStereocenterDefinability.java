@@ -0,0 +1,92 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openscience.cdk.CDKConstants;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class TestStereocenterDefinability {
+
+    //the cap is global and other tests change it
+    private int savedCap;
+
+    @Before
+    public void setDefaultCap() {
+        savedCap = CdkChemicalImpl.getMaxUndefinedStereoCenters();
+        CdkChemicalImpl.setMaxUndefinedStereoCenters(5);
+    }
+
+    @After
+    public void restoreCap() {
+        CdkChemicalImpl.setMaxUndefinedStereoCenters(savedCap);
+    }
+
+    @Test
+    public void independentRingSystemsAreSeparateGroups() throws Exception {
+        //two 1,4-disubstituted cyclohexanes joined by a chain
+        Chemical c = Chemical.parse("CC1CCC(CCCC2CCC(C)CC2)CC1");
+        StereocenterDefinability definability = StereocenterDefinability.of(CdkUtil.toAtomContainer(c)).get();
+
+        List<List<Integer>> groups = definability.dependentGroups(Arrays.asList(1, 4, 8, 11));
+        assertEquals(2, groups.size());
+        assertTrue(groups.contains(Arrays.asList(1, 4)));
+        assertTrue(groups.contains(Arrays.asList(8, 11)));
+    }
+
+    @Test
+    public void centerWithoutEquivalentBranchesIsItsOwnGroup() throws Exception {
+        Chemical c = Chemical.parse("CC(O)C(C)CC");
+        StereocenterDefinability definability = StereocenterDefinability.of(CdkUtil.toAtomContainer(c)).get();
+
+        List<List<Integer>> groups = definability.dependentGroups(Arrays.asList(1, 3));
+        assertEquals(2, groups.size());
+    }
+
+    //atoms that were given a CIP label, EITHER for an undefined center that can be defined
+    private static Set<Integer> labelledCenters(String smiles) throws Exception {
+        //the smiles parser doesn't keep stereo without coordinates
+        Chemical parsed = Chemical.parse(smiles);
+        parsed.generateCoordinates();
+        Chemical c = Chemical.parseMol(parsed.toMol());
+        CdkChemicalImpl impl = (CdkChemicalImpl) c.getImpl();
+        impl.cahnIngoldPrelogSupplier.get();
+        Set<Integer> labelled = new TreeSet<>();
+        for (int i = 0; i < c.getAtomCount(); i++) {
+            if (impl.getContainer().getAtom(i).getProperty(CDKConstants.CIP_DESCRIPTOR) != null) {
+                labelled.add(i);
+            }
+        }
+        return labelled;
+    }
+
+    @Test
+    public void definedCentersAreNotMirrored() throws Exception {
+        //same as enumerating every undefined center at once
+        assertEquals(new TreeSet<>(Arrays.asList(3, 5, 7)), labelledCenters("OC(=O)C(O)C(O)[C@@H](O)C(=O)O"));
+        assertEquals(new TreeSet<>(Arrays.asList(1, 3, 4, 7)), labelledCenters("CC(O)C(C(C)O)[C@@H](C)O"));
+        assertEquals(new TreeSet<>(Arrays.asList(1, 4, 7)), labelledCenters("CC(O)C(C(C)O)[C@H](C)O"));
+        //nothing defined
+        assertEquals(new TreeSet<>(Arrays.asList(1, 3, 4, 7)), labelledCenters("CC(O)C(C(C)O)C(C)O"));
+    }
+
+    @Test
+    public void moreCentersThanTheCapCanStillBeEnumeratedInGroups() throws Exception {
+        //three 1,4-disubstituted cyclohexanes in a row
+        Chemical c = Chemical.parse("CC1CCC(CC2CCC(CC3CCC(C)CC3)CC2)CC1");
+        StereocenterDefinability definability = StereocenterDefinability.of(CdkUtil.toAtomContainer(c)).get();
+
+        List<Integer> centers = Arrays.asList(1, 4, 6, 9, 11, 14);
+        assertTrue(centers.size() > CdkChemicalImpl.getMaxUndefinedStereoCenters());
+
+        List<List<Integer>> groups = definability.dependentGroups(centers);
+        assertEquals(Arrays.asList(Arrays.asList(1, 4), Arrays.asList(6, 9), Arrays.asList(11, 14)), groups);
+    }
+}
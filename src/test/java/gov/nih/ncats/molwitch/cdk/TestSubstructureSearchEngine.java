@@ -0,0 +1,122 @@
+package gov.nih.ncats.molwitch.cdk;
+
+import gov.nih.ncats.molwitch.Chemical;
+import gov.nih.ncats.molwitch.cdk.search.CdkMolSearcher;
+import gov.nih.ncats.molwitch.cdk.search.SubstructureSearchEngine;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TestSubstructureSearchEngine {
+
+    private static final String[] TARGETS = {
+            "CC(=O)Oc1ccccc1C(=O)O", "OC(=O)c1ccccc1O", "CC(=O)Nc1ccc(O)cc1", "CN1C=NC2=C1C(=O)N(C(=O)N2C)C",
+            "CC(C)Cc1ccc(cc1)C(C)C(=O)O", "c1ccc2ccccc2c1", "NCCc1ccc(O)c(O)c1", "CCO", "OC(=O)CCC(=O)O",
+            "C1CCCCC1", "Clc1ccc(cc1)C(c1ccc(Cl)cc1)C(Cl)(Cl)Cl", "c1ccncc1", "CC1CCNCC1"
+    };
+
+    private static List<Chemical> targets() throws IOException {
+        List<Chemical> list = new ArrayList<>();
+        for (String s : TARGETS) {
+            list.add(Chemical.parse(s));
+        }
+        //the same structures again but kekulized from a mol file
+        for (String s : TARGETS) {
+            list.add(Chemical.parseMol(Chemical.parse(s).toMol()));
+        }
+        return list;
+    }
+
+    //the targets above plus every test mol file
+    private static List<Chemical> corpus() throws Exception {
+        List<Chemical> list = targets();
+        File[] mols = new File(TestSubstructureSearchEngine.class.getResource("/mols").toURI()).listFiles();
+        Arrays.sort(mols);
+        for (File mol : mols) {
+            try {
+                list.add(Chemical.parseMol(mol));
+            } catch (Exception e) {
+                //a few of them are empty or not readable, not what this is testing
+            }
+        }
+        return list;
+    }
+
+    private static List<Integer> bruteForce(CdkMolSearcher searcher, List<Chemical> targets) {
+        List<Integer> hits = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            if (searcher.search(targets.get(i)).isPresent()) {
+                hits.add(i);
+            }
+        }
+        return hits;
+    }
+
+    private static List<Integer> indexes(SubstructureSearchEngine engine, Chemical query) {
+        return engine.search(query).map(SubstructureSearchEngine.Match::getIndex).collect(Collectors.toList());
+    }
+
+    @Test
+    public void screenedSearchFindsTheSameHitsAsMatchingEveryTarget() throws IOException {
+        List<Chemical> targets = targets();
+        SubstructureSearchEngine engine = SubstructureSearchEngine.build(targets);
+        assertEquals(targets.size(), engine.size());
+
+        for (String q : new String[]{"c1ccccc1", "C1=CC=CC=C1", "Oc1ccccc1", "OC(=O)c1ccccc1", "C(=O)O", "CN",
+                "Clc1ccccc1", "c1ccncc1", "C1CCNCC1", "CCO", "c1ccc2ccccc2c1"}) {
+            Chemical query = Chemical.parse(q);
+            List<Integer> expected = bruteForce(new CdkMolSearcher(query), targets);
+            assertEquals(q, expected, indexes(engine, query));
+            assertTrue(q, engine.candidates(query).count() <= targets.size());
+        }
+        //the screen does throw some out
+        assertTrue(engine.candidates(Chemical.parse("c1ccc2ccccc2c1")).count() < targets.size());
+    }
+
+    @Test
+    public void screenNeverDropsHitsThatDependOnBondOrder() throws Exception {
+        List<Chemical> corpus = corpus();
+        SubstructureSearchEngine engine = SubstructureSearchEngine.build(corpus);
+
+        for (String q : new String[]{"C=C", "CC=C", "C=N", "CC", "CN", "C=O", "C#N", "C1=CC=CC=C1", "c1ccccc1",
+                "c1ccncc1", "C1=CC=NC=C1", "OC1CCCCC1", "CC(C)(C)C", "NC(=O)C", "C1CCOC1"}) {
+            Chemical query = Chemical.parse(q);
+            List<Integer> expected = bruteForce(new CdkMolSearcher(query), corpus);
+            assertEquals(q, expected, indexes(engine, query));
+        }
+        //kekule queries from a mol file too
+        for (String q : new String[]{"c1ccccc1O", "c1ccc2ccccc2c1"}) {
+            Chemical query = Chemical.parseMol(Chemical.parse(q).toMol());
+            List<Integer> expected = bruteForce(new CdkMolSearcher(query), corpus);
+            assertEquals(q, expected, indexes(engine, query));
+        }
+    }
+
+    @Test
+    public void smartsQueriesAreNotScreened() throws IOException {
+        List<Chemical> targets = targets();
+        SubstructureSearchEngine engine = SubstructureSearchEngine.build(targets);
+        for (String smarts : new String[]{"C1CCCCC1", "[#6]-[#7]", "C(=O)[OX2H1,OX1-]", "c[Cl,F]"}) {
+            List<Integer> expected = bruteForce(new CdkMolSearcher(smarts), targets);
+            List<Integer> actual = engine.search(smarts).map(SubstructureSearchEngine.Match::getIndex)
+                    .collect(Collectors.toList());
+            assertEquals(smarts, expected, actual);
+        }
+        assertEquals(targets.size(), engine.candidates(Chemical.createFromSmarts("C1CCCCC1")).count());
+    }
+
+    @Test
+    public void resultsAreLazy() throws IOException {
+        SubstructureSearchEngine engine = SubstructureSearchEngine.build(targets());
+        SubstructureSearchEngine.Match first = engine.search(Chemical.parse("c1ccccc1")).findFirst().get();
+        assertEquals(0, first.getIndex());
+        assertEquals(6, first.getMapping().length);
+    }
+}